@@ -19,7 +19,8 @@ interface Post {
   duration?: string;
   isAnonymous?: boolean;
   options?: string[];
-  correctAnswer?: number; // 0-indexed index of correct option
+  quizId?: number; // Server id of a live quiz; answers go to /app/quiz/{quizId}/answer
+  dorm?: string; // Set on dorm posts; campus-wide posts have none
 }
 
 export default function Home() {
@@ -80,10 +81,26 @@ export default function Home() {
   }, [router]);
 
   useEffect(() => {
-    const subscription = webSocketService.subscribe('/topic/feed', (newPost: unknown) => {
+    // Dorm residents follow their dorm's shard: own dorm's posts plus campus-wide ones
+    const dorm: string | undefined = JSON.parse(localStorage.getItem("user") || "{}").dorm;
+    const destination = dorm
+      ? `/topic/feed/${dorm.trim().toLowerCase().replace(/[^a-z0-9]+/g, '-')}`
+      : '/topic/feed';
+    const subscription = webSocketService.subscribe(destination, (newPost: unknown) => {
       const post = newPost as Post;
       setLivePosts(prev => {
-        const updated = [{ ...post, id: Date.now() + Math.random() }, ...prev];
+        // Streamed posts arrive as "typing" partials sharing one id; update them in place
+        const streaming = prev.findIndex(p => p.id === post.id && p.type === 'typing');
+        if (streaming !== -1) {
+          const updated = [...prev];
+          updated[streaming] = post;
+          return updated;
+        }
+        const updated = [{
+          ...post,
+          quizId: post.type === 'quiz' ? post.id : undefined,
+          id: post.type === 'typing' ? post.id : Date.now() + Math.random()
+        }, ...prev];
         return updated.slice(0, 50); // Limit to 50 items to prevent "stacking"/lag
       });
     });
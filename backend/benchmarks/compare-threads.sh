@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Runs the same load against a node on platform threads and then on virtual
+# threads, and keeps both reports under results/. Needs JDK 21 for the second
+# run (on 17 the property is ignored and both runs are platform threads).
+#
+#   (cd .. && mvn -B -q -Pvirtual-threads package -DskipTests) && mvn -B -q package
+#   ./compare-threads.sh --sessions 5000 --http-concurrency 500 --duration-sec 60
+#
+# Arguments are passed to the load generator; APP_JAR, PORT and NODE_OPTS
+# override the node's jar, port and JVM options.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+APP_JAR=$(realpath "${APP_JAR:-../target/backend-0.0.1-SNAPSHOT.jar}")
+PORT=${PORT:-8080}
+NODE_OPTS=${NODE_OPTS:--Xmx1g}
+if [ $# -eq 0 ]; then
+    set -- --sessions 5000 --ramp-per-sec 500 --http-concurrency 500 --duration-sec 60
+fi
+
+mkdir -p results
+stamp=$(date +%Y%m%d-%H%M%S)
+for mode in platform virtual; do
+    virtual=false
+    [ "$mode" = virtual ] && virtual=true
+
+    # Fresh working directory so feed logs, caches and avatars start empty
+    workdir=$(mktemp -d)
+    (cd "$workdir" && exec java $NODE_OPTS -Djdk.tracePinnedThreads=short -jar "$APP_JAR" \
+        --server.port="$PORT" --spring.threads.virtual.enabled="$virtual") > "results/$stamp-$mode-node.log" 2>&1 &
+    node=$!
+    trap 'kill $node 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/api/time" > /dev/null; do
+        kill -0 $node 2>/dev/null || { echo "Node failed to start, see results/$stamp-$mode-node.log"; exit 1; }
+        sleep 1
+    done
+
+    echo "== $mode threads =="
+    java -cp target/benchmarks.jar com.blud.load.LoadGenerator --url "http://localhost:$PORT" "$@" \
+        | tee "results/$stamp-$mode.txt"
+
+    kill $node && wait $node 2>/dev/null || true
+    rm -rf "$workdir"
+done
+
+echo "Reports: results/$stamp-platform.txt results/$stamp-virtual.txt"
@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+# Runs the benchmarks and keeps the JMH JSON result under results/, named by
+# git revision and time so runs can be compared across commits.
+# Extra arguments are passed to JMH, e.g. ./run.sh DormStatsBenchmark -p users=100000
+set -euo pipefail
+cd "$(dirname "$0")"
+
+if [ ! -f target/benchmarks.jar ]; then
+    mvn -B -q clean package
+fi
+
+version=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+mkdir -p results
+out="results/${version}-$(date +%Y%m%d-%H%M%S).json"
+java -jar target/benchmarks.jar -rf json -rff "$out" "$@"
+echo "Results written to $out"
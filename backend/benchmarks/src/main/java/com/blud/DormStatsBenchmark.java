@@ -0,0 +1,94 @@
+package com.blud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Dorm leaderboard over synthetic users. {@code fullScan} is the original
+ * per-request aggregation over every loaded user; {@code incrementalRead} and
+ * {@code incrementalUpdate} are what {@link DormLeaderboard} does per request
+ * and per score change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DormStatsBenchmark {
+
+    private static final String[] DORMS = { "North Hall", "South Hall", "East Wing", "West Commons" };
+
+    @Param({ "10000", "100000", "1000000" })
+    public int users;
+
+    private final Random random = new Random(42);
+    private List<User> all;
+    private DormLeaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        all = new ArrayList<>(users);
+        leaderboard = new DormLeaderboard();
+        // Pushes go nowhere
+        inject(leaderboard, "template", new SimpMessagingTemplate((message, timeout) -> true));
+        for (int i = 0; i < users; i++) {
+            User user = new User((long) i, "user" + i + "@campus.edu", "User " + i, null, "oauth", "user" + i,
+                    "CS", DORMS[i % DORMS.length]);
+            user.setProductivity(random.nextInt(101));
+            user.setSuccessRate(random.nextInt(101));
+            all.add(user);
+            leaderboard.update(null, null, user.getDorm(), user.getProductivity());
+        }
+    }
+
+    @Benchmark
+    public List<DormStat> fullScan() {
+        Map<String, Double> dormAvg = all.stream()
+                .filter(u -> u.getDorm() != null && !u.getDorm().isEmpty())
+                .filter(u -> u.getProductivity() != null)
+                .collect(Collectors.groupingBy(User::getDorm, Collectors.averagingInt(User::getProductivity)));
+        return dormAvg.entrySet().stream()
+                .map(e -> new DormStat(e.getKey(), Math.round(e.getValue())))
+                .sorted((a, b) -> Long.compare(b.getScore(), a.getScore()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<DormStat> incrementalRead() {
+        return leaderboard.getRanking();
+    }
+
+    @Benchmark
+    public List<DormStat> incrementalUpdate() {
+        // +2 and back again keeps the totals stable across iterations
+        String dorm = DORMS[random.nextInt(DORMS.length)];
+        leaderboard.update(dorm, 50, dorm, 52);
+        leaderboard.update(dorm, 52, dorm, 50);
+        return leaderboard.getRanking();
+    }
+
+    private static void inject(Object target, String field, Object value) throws ReflectiveOperationException {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
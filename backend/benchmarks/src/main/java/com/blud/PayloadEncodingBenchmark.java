@@ -0,0 +1,81 @@
+package com.blud;
+
+import com.blud.broker.PayloadEncoding;
+import com.blud.heatmap.HeatmapFrame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost and wire size of each STOMP payload type per encoding.
+ * {@code serialize} is the full producer path (message converter output plus
+ * re-encoding); {@code encode} is only the re-encoding a fan-out pays once per
+ * payload. Encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    @Param({ "text-post", "quiz-post", "heatmap", "radio" })
+    public String type;
+
+    @Param({ "json", "json-compact", "cbor" })
+    public String encoding;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PayloadEncoding payloadEncoding;
+    private Object sample;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        payloadEncoding = PayloadEncoding.fromHeader(encoding);
+        sample = sample(type);
+        json = objectMapper.writeValueAsBytes(sample);
+        System.out.println("\n" + type + " as " + encoding + ": " + payloadEncoding.encode(json).length
+                + " bytes (json " + json.length + ")");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return payloadEncoding.encode(objectMapper.writeValueAsBytes(sample));
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return payloadEncoding.encode(json);
+    }
+
+    static Object sample(String type) {
+        switch (type) {
+            case "quiz-post":
+                return new Post(1760000000000L, "Neural Feed", "Pop Quiz",
+                        "Which data structure gives O(1) average lookup by key?", "quiz", null, null, false,
+                        Arrays.asList("Linked list", "Hash table", "Binary heap", "Sorted array"), 1);
+            case "heatmap":
+                return new HeatmapFrame(1042, false, new int[] { 3, 17, 42 }, new double[] { 0.61, 0.93, 0.8731 });
+            case "radio":
+                return new RadioUpdate("Nujabes - Aruarian Dance", 1760000040000L, 180000, "LIVE");
+            default:
+                return new Post(1760000000000L, "The Void", "Just now", "The architecture building is breathing.",
+                        "text", null, null, true, null, null);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.blud;
+
+import com.blud.service.OpenAIService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one AI quiz batch response into validated quizzes: fence
+ * stripping plus Jackson parse, the work done per prefetched batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuizParseBenchmark {
+
+    @Param({ "1", "5", "20" })
+    public int batchSize;
+
+    @Param({ "fenced", "plain" })
+    public String format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"question\": \"Which sorting algorithm has O(n log n) worst case, question ").append(i)
+                    .append("?\", \"options\": [\"Quicksort\", \"Merge sort\", \"Bubble sort\", \"Insertion sort\"], ")
+                    .append("\"correctAnswer\": 1}");
+        }
+        json.append(']');
+        response = format.equals("fenced") ? "```json\n" + json + "\n```" : json.toString();
+    }
+
+    @Benchmark
+    public String stripFences() {
+        return OpenAIService.stripCodeFences(response);
+    }
+
+    @Benchmark
+    public List<QuizEngine.QuizTemplate> stripAndParse() {
+        return QuizEngine.parseQuizBatch(objectMapper, response);
+    }
+}
@@ -0,0 +1,85 @@
+package com.blud;
+
+import com.blud.broker.BrokerFanoutBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What an engine pays end to end for {@code template.convertAndSend}: Jackson
+ * conversion of the payload object, the broker channel, and delivery to every
+ * subscriber of the configured broker. Compare with
+ * {@link BrokerFanoutBenchmark}, which starts from already serialized bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateFanoutBenchmark {
+
+    @Param({ "simple", "fanout" })
+    public String broker;
+
+    @Param({ "1000", "10000" })
+    public int subscribers;
+
+    @Param({ "text-post", "heatmap", "radio" })
+    public String type;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private AbstractBrokerMessageHandler handler;
+    private SimpMessagingTemplate template;
+    private String destination;
+    private Object payload;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+        outbound.subscribe(m -> delivered.incrementAndGet());
+
+        destination = switch (type) {
+            case "heatmap" -> "/topic/heatmap";
+            case "radio" -> "/topic/radio";
+            default -> "/topic/feed";
+        };
+        handler = BrokerFanoutBenchmark.startBroker(broker, subscribers, destination, inbound, outbound,
+                brokerChannel);
+        template = new SimpMessagingTemplate(brokerChannel);
+        payload = PayloadEncodingBenchmark.sample(type);
+        delivered.set(0); // Discard CONNECT_ACKs
+    }
+
+    @TearDown
+    public void tearDown() {
+        handler.stop();
+    }
+
+    @Benchmark
+    public long convertAndSend() {
+        long target = delivered.get() + subscribers;
+        template.convertAndSend(destination, payload);
+        while (delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,128 @@
+package com.blud.broker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to deliver one published message to every subscriber of a topic,
+ * Spring's simple broker vs the ring-buffer fan-out broker. The outbound channel
+ * is synchronous and only counts deliveries, so this isolates broker cost from
+ * WebSocket I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrokerFanoutBenchmark {
+
+    @Param({ "simple", "fanout" })
+    public String broker;
+
+    @Param({ "1000", "10000" })
+    public int subscribers;
+
+    @Param({ "/topic/feed", "/topic/heatmap", "/topic/radio" })
+    public String destination;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private AbstractBrokerMessageHandler handler;
+    private Message<byte[]> message;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+        outbound.subscribe(m -> delivered.incrementAndGet());
+
+        handler = startBroker(broker, subscribers, destination, inbound, outbound, brokerChannel);
+
+        SimpMessageHeaderAccessor publish = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        publish.setDestination(destination);
+        publish.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        message = MessageBuilder.createMessage(samplePayload(destination), publish.getMessageHeaders());
+        delivered.set(0); // Discard CONNECT_ACKs
+    }
+
+    @TearDown
+    public void tearDown() {
+        handler.stop();
+    }
+
+    @Benchmark
+    public long publishToAllSubscribers() {
+        long target = delivered.get() + subscribers;
+        handler.handleMessage(message);
+        while (delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+        return target;
+    }
+
+    /**
+     * Starts a broker of the given kind with every session CONNECTed and
+     * subscribed to the destination.
+     */
+    public static AbstractBrokerMessageHandler startBroker(String broker, int subscribers, String destination,
+            ExecutorSubscribableChannel inbound, ExecutorSubscribableChannel outbound,
+            ExecutorSubscribableChannel brokerChannel) {
+        AbstractBrokerMessageHandler handler;
+        if (broker.equals("fanout")) {
+            handler = new FanoutBrokerMessageHandler(inbound, outbound, brokerChannel, List.of("/topic"), 1024, 4, 1024);
+        } else {
+            handler = new SimpleBrokerMessageHandler(inbound, outbound, brokerChannel, List.of("/topic"));
+        }
+        handler.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            // The simple broker only delivers to sessions it has seen CONNECT
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId("session-" + i);
+            handler.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(destination);
+            handler.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+        return handler;
+    }
+
+    static byte[] samplePayload(String destination) {
+        String json;
+        switch (destination) {
+            case "/topic/heatmap" -> json = "{\"version\":1042,\"snapshot\":false,\"ids\":[3,17,42],\"activity\":[0.61,0.93,0.8731]}";
+            case "/topic/radio" -> json = "{\"track\":\"Nujabes - Aruarian Dance\",\"startedAt\":1760000040000,\"total\":180000,\"status\":\"LIVE\"}";
+            default -> json = "{\"id\":1760000000000,\"author\":\"The Void\",\"time\":\"Just now\","
+                    + "\"content\":\"The architecture building is breathing.\",\"type\":\"text\",\"image\":null,"
+                    + "\"duration\":null,\"options\":null,\"correctAnswer\":null,\"isAnonymous\":true}";
+        }
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
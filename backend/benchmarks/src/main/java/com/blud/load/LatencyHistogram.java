@@ -0,0 +1,74 @@
+package com.blud.load;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values (microseconds here).
+ * Each power of two is split into 32 buckets, so reported percentiles are
+ * within about 3% of the recorded value while recording stays one atomic add.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sum.add(v);
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Lower bound of the bucket holding the given quantile, e.g. 0.999.
+     */
+    long percentile(double quantile) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return lowerBound(counts.length() - 1);
+    }
+
+    String summary() {
+        return String.format("n=%d mean=%.0f p50=%d p99=%d p999=%d max~%d", count(), mean(),
+                percentile(0.50), percentile(0.99), percentile(0.999), percentile(1.0));
+    }
+
+    private static int index(long v) {
+        if (v < 2 * SUB_BUCKETS) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - 5; // Keep the top 6 bits
+        return shift * SUB_BUCKETS + (int) (v >>> shift);
+    }
+
+    private static long lowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index - shift * SUB_BUCKETS) << shift;
+    }
+}
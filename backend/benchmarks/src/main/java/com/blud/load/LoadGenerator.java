@@ -0,0 +1,393 @@
+package com.blud.load;
+
+import com.blud.broker.PayloadEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens many STOMP sessions against a running node (SockJS on {@code /ws} or
+ * raw WebSocket on {@code /ws-native}), subscribes each to the feed, heatmap
+ * and radio topics, and drives the REST endpoints the UI calls, then reports
+ * delivery latency and throughput.
+ * <ul>
+ * <li><b>feed delivery</b>: receive time minus the post id, which the server
+ * stamps with {@code currentTimeMillis} when it publishes. Millisecond
+ * resolution; run on the same host as the node (or with synced clocks).</li>
+ * <li><b>fan-out spread</b>: per message, time from the first session receiving
+ * it to each later one. Needs no clock agreement and covers every topic.</li>
+ * <li><b>HTTP</b>: {@code POST /api/users/sync} and {@code POST /api/stats/score}
+ * round trips at the configured rates, plus {@code --http-concurrency}
+ * closed-loop score posters that each send the next request as soon as the
+ * previous one answers (for request throughput under high concurrency).</li>
+ * <li><b>quiz verdict</b>: {@code --quiz-answer-ratio} of the sessions answer
+ * each quiz over STOMP as soon as it arrives, which is the burst the answer
+ * path has to absorb; time from SEND to the verdict on
+ * {@code /user/queue/quiz}.</li>
+ * </ul>
+ * Only messages received after the ramp-up (and the subscribe-time replays it
+ * causes) count towards the percentiles.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.blud.load.LoadGenerator --url http://localhost:8080 --sessions 5000
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final String[] TOPICS = { "/topic/feed", "/topic/heatmap", "/topic/radio" };
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LatencyHistogram feedDelivery = new LatencyHistogram();
+    private final LatencyHistogram fanoutSpread = new LatencyHistogram();
+    private final LatencyHistogram syncLatency = new LatencyHistogram();
+    private final LatencyHistogram scoreLatency = new LatencyHistogram();
+    private final LatencyHistogram quizLatency = new LatencyHistogram();
+    private final Map<String, Long> quizSent = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> quizOutcomes = new ConcurrentHashMap<>();
+    private final Map<String, Long> firstSeen = new ConcurrentHashMap<>();
+    private final Queue<StompSession> sessions = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder measuredMessages = new LongAdder();
+    private final LongAdder httpErrors = new LongAdder();
+    private final LongAdder httpCompleted = new LongAdder();
+
+    private final String baseUrl;
+    private final int sessionCount;
+    private final int rampPerSecond;
+    private final long durationSeconds;
+    private final String transport;
+    private final String encoding;
+    private final int users;
+    private final double scoreRate;
+    private final double syncRate;
+    private final int httpConcurrency;
+    private final double quizAnswerRatio;
+
+    private volatile boolean measuring;
+    private volatile long measureStartMillis = Long.MAX_VALUE;
+    private long lastReceived;
+
+    LoadGenerator(Args args) {
+        this.baseUrl = args.get("url", "http://localhost:8080").replaceAll("/+$", "");
+        this.sessionCount = (int) args.getLong("sessions", 1000);
+        this.rampPerSecond = (int) args.getLong("ramp-per-sec", 200);
+        this.durationSeconds = args.getLong("duration-sec", 60);
+        this.transport = args.get("transport", "sockjs");
+        this.encoding = args.get("encoding", "json-compact");
+        this.users = (int) args.getLong("users", 200);
+        this.scoreRate = args.getDouble("score-rps", 50);
+        this.syncRate = args.getDouble("sync-rps", 5);
+        this.httpConcurrency = (int) args.getLong("http-concurrency", 0);
+        this.quizAnswerRatio = args.getDouble("quiz-answer-ratio", 0.5);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        new LoadGenerator(new Args(argv)).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setPoolSize(4);
+        heartbeats.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeats.initialize();
+
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        boolean sockJs = !transport.equals("native");
+        WebSocketStompClient stompClient = new WebSocketStompClient(sockJs
+                ? new SockJsClient(List.of(new WebSocketTransport(webSocketClient)))
+                : webSocketClient);
+        stompClient.setMessageConverter(new ByteArrayMessageConverter());
+        stompClient.setTaskScheduler(heartbeats);
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+        String url = baseUrl + (sockJs ? "/ws" : "/ws-native");
+
+        System.out.printf("Seeding %d users via POST /api/users/sync%n", users);
+        for (int i = 0; i < users; i++) {
+            post("/api/users/sync", syncBody(i), syncLatency);
+        }
+
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(4);
+        timer.scheduleAtFixedRate(this::printProgress, 5, 5, TimeUnit.SECONDS);
+        timer.scheduleAtFixedRate(this::expireFirstSeen, 10, 10, TimeUnit.SECONDS);
+
+        System.out.printf("Connecting %d sessions to %s (%s encoding), %d/s%n", sessionCount, url, encoding,
+                rampPerSecond);
+        long rampStart = System.nanoTime();
+        for (int i = 0; i < sessionCount; i++) {
+            long due = rampStart + i * 1_000_000_000L / Math.max(1, rampPerSecond);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.set(PayloadEncoder.ENCODING_HEADER, encoding);
+            stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new SessionHandler())
+                    .whenComplete((session, e) -> {
+                        if (e != null) {
+                            failed.incrementAndGet();
+                        }
+                    });
+        }
+
+        // Let subscribe-time snapshots and feed replays settle before measuring
+        TimeUnit.SECONDS.sleep(3);
+        firstSeen.clear();
+        measureStartMillis = System.currentTimeMillis();
+        measuring = true;
+        long measureStart = System.nanoTime();
+        System.out.printf("Measuring for %ds with %d sessions connected%n", durationSeconds, connected.get());
+
+        if (scoreRate > 0) {
+            timer.scheduleAtFixedRate(() -> post("/api/stats/score", scoreBody(), scoreLatency),
+                    0, (long) (1_000_000 / scoreRate), TimeUnit.MICROSECONDS);
+        }
+        if (syncRate > 0) {
+            timer.scheduleAtFixedRate(() -> post("/api/users/sync",
+                    syncBody(ThreadLocalRandom.current().nextInt(users)), syncLatency),
+                    0, (long) (1_000_000 / syncRate), TimeUnit.MICROSECONDS);
+        }
+
+        for (int i = 0; i < httpConcurrency; i++) {
+            postScoresInLoop();
+        }
+
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        measuring = false;
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        timer.shutdownNow();
+
+        report(seconds);
+        printNodeMetrics();
+        for (StompSession session : sessions) {
+            try {
+                session.disconnect();
+            } catch (RuntimeException ignored) {
+            }
+        }
+        heartbeats.shutdown();
+    }
+
+    private void onMessage(StompSession session, String destination, StompHeaders headers, byte[] payload) {
+        received.increment();
+        if (!measuring) {
+            return;
+        }
+        measuredMessages.increment();
+        long now = System.nanoTime();
+
+        String key = destination + ':' + payload.length + ':' + Arrays.hashCode(payload);
+        Long first = firstSeen.putIfAbsent(key, now);
+        fanoutSpread.record(first == null ? 0 : (now - first) / 1000);
+
+        if (destination.equals("/topic/feed")) {
+            try {
+                boolean binary = MimeTypeUtils.APPLICATION_OCTET_STREAM.equals(headers.getContentType());
+                JsonNode post = (binary ? cbor : json).readTree(payload);
+                long id = post.path("id").asLong();
+                if (!"typing".equals(post.path("type").asText()) && id >= measureStartMillis) {
+                    feedDelivery.record((System.currentTimeMillis() - id) * 1000);
+                }
+                if ("quiz".equals(post.path("type").asText()) && id >= measureStartMillis
+                        && ThreadLocalRandom.current().nextDouble() < quizAnswerRatio) {
+                    answerQuiz(session, id, post.path("options").size());
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void answerQuiz(StompSession session, long quizId, int options) {
+        StompHeaders send = new StompHeaders();
+        send.setDestination("/app/quiz/" + quizId + "/answer");
+        send.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        String body = "{\"option\":" + ThreadLocalRandom.current().nextInt(Math.max(1, options))
+                + ",\"email\":\"load-" + ThreadLocalRandom.current().nextInt(users) + "@blud.test\"}";
+        quizSent.put(session.getSessionId() + ':' + quizId, System.nanoTime());
+        session.send(send, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void onVerdict(StompSession session, StompHeaders headers, byte[] payload) {
+        try {
+            boolean binary = MimeTypeUtils.APPLICATION_OCTET_STREAM.equals(headers.getContentType());
+            JsonNode verdict = (binary ? cbor : json).readTree(payload);
+            Long sent = quizSent.remove(session.getSessionId() + ':' + verdict.path("quizId").asLong());
+            if (sent != null) {
+                quizLatency.record((System.nanoTime() - sent) / 1000);
+            }
+            quizOutcomes.computeIfAbsent(verdict.path("outcome").asText(), o -> new LongAdder()).increment();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void postScoresInLoop() {
+        if (measuring) {
+            post("/api/stats/score", scoreBody(), scoreLatency).whenComplete((r, e) -> postScoresInLoop());
+        }
+    }
+
+    private CompletableFuture<?> post(String path, String body, LatencyHistogram latency) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null || response.statusCode() / 100 != 2) {
+                httpErrors.increment();
+            } else {
+                latency.record((System.nanoTime() - start) / 1000);
+                if (measuring) {
+                    httpCompleted.increment();
+                }
+            }
+        });
+    }
+
+    private static String syncBody(int user) {
+        return "{\"email\":\"load-" + user + "@blud.test\",\"name\":\"Load " + user + "\"}";
+    }
+
+    private String scoreBody() {
+        return "{\"email\":\"load-" + ThreadLocalRandom.current().nextInt(users)
+                + "@blud.test\",\"correct\":true}";
+    }
+
+    private void expireFirstSeen() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(30);
+        firstSeen.values().removeIf(t -> t < cutoff);
+    }
+
+    private void printProgress() {
+        long total = received.sum();
+        System.out.printf("sessions=%d failed=%d dropped=%d msgs/s=%d httpErrors=%d%n", connected.get(),
+                failed.get(), dropped.get(), (total - lastReceived) / 5, httpErrors.sum());
+        lastReceived = total;
+    }
+
+    private void report(double seconds) {
+        System.out.println();
+        System.out.printf("Sessions: %d connected, %d failed to connect, %d dropped by the server%n",
+                connected.get(), failed.get(), dropped.get());
+        System.out.printf("Throughput: %.0f msgs/s delivered across all sessions (%d in %.1fs)%n",
+                measuredMessages.sum() / seconds, measuredMessages.sum(), seconds);
+        System.out.printf("HTTP throughput: %.0f req/s%n", httpCompleted.sum() / seconds);
+        System.out.println("Latencies in microseconds:");
+        System.out.println("  feed delivery   " + feedDelivery.summary());
+        System.out.println("  fan-out spread  " + fanoutSpread.summary());
+        System.out.println("  POST sync       " + syncLatency.summary());
+        System.out.println("  POST score      " + scoreLatency.summary());
+        System.out.println("  quiz verdict    " + quizLatency.summary());
+        System.out.println("  quiz outcomes   " + quizOutcomes);
+        System.out.println("  HTTP errors     " + httpErrors.sum());
+    }
+
+    /**
+     * Node footprint under load (memory, platform threads, channel queues,
+     * pinning), sampled while every session is still connected.
+     */
+    private void printNodeMetrics() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/metrics"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        try {
+            String body = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            System.out.println("Node metrics:");
+            for (String line : body.split("\n")) {
+                if (line.startsWith("blud_jvm_") || line.startsWith("blud_channel_")
+                        || line.startsWith("blud_websocket_sessions") || line.startsWith("blud_virtual_thread_pinned_total")) {
+                    System.out.println("  " + line);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Node metrics unavailable: " + e.getMessage());
+        }
+    }
+
+    private final class SessionHandler extends StompSessionHandlerAdapter {
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            connected.incrementAndGet();
+            sessions.add(session);
+            for (String topic : TOPICS) {
+                session.subscribe(topic, new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return byte[].class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        onMessage(session, topic, headers, (byte[]) payload);
+                    }
+                });
+            }
+            session.subscribe("/user/queue/quiz", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    onVerdict(session, headers, (byte[]) payload);
+                }
+            });
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            if (sessions.remove(session)) {
+                connected.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.blud.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for {@code POST /v1/chat/completions}, so the backend's
+ * OpenAI client (pooling, deadlines, breaker, pacer, streaming) runs for real
+ * without network or quota. Start the backend with
+ * {@code --blud.openai.base-url=http://localhost:8089/v1} and
+ * {@code OPENAI_API_KEY=stub}.
+ * <p>
+ * Answers are shaped after the prompt: a JSON array of quiz objects or of
+ * strings when the prompt asks for one, otherwise a single sentence; with
+ * {@code "stream": true} the text is sent as SSE deltas. Latency, 429s with
+ * {@code retry-after-ms}, 500s, hung calls and markdown fences are injected at
+ * the configured rates.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.blud.load.OpenAIStub --port 8089 --latency-ms 400 --error-rate 0.05
+ * </pre>
+ */
+public class OpenAIStub {
+
+    private static final Pattern ARRAY_SIZE = Pattern.compile("an array of (\\d+)");
+    private static final String[] WORDS = { "the", "library", "hums", "at", "night", "and", "nobody", "asks",
+            "why", "stairwell", "seven", "remembers", "every", "exam", "lost", "signal", "in", "dorm" };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final double hangRate;
+    private final double fenceRate;
+    private final long chunkMs;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injected = new AtomicLong();
+
+    OpenAIStub(Args args) {
+        this.latencyMs = args.getLong("latency-ms", 300);
+        this.jitterMs = args.getLong("jitter-ms", 200);
+        this.errorRate = args.getDouble("error-rate", 0.0);
+        this.rateLimitRate = args.getDouble("rate-limit-rate", 0.0);
+        this.hangRate = args.getDouble("hang-rate", 0.0);
+        this.fenceRate = args.getDouble("fence-rate", 0.2);
+        this.chunkMs = args.getLong("chunk-ms", 40);
+    }
+
+    public static void main(String[] argv) throws IOException {
+        Args args = new Args(argv);
+        int port = (int) args.getLong("port", 8089);
+        OpenAIStub stub = new OpenAIStub(args);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 512);
+        server.createContext("/v1/chat/completions", stub::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        System.out.println("OpenAI stub listening on http://localhost:" + port + "/v1");
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+                () -> System.out.println("stub: requests=" + stub.requests.get() + " injected=" + stub.injected.get()),
+                10, 10, TimeUnit.SECONDS);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String prompt = request.path("messages").path(0).path("content").asText();
+            boolean stream = request.path("stream").asBoolean(false);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < rateLimitRate) {
+                injected.incrementAndGet();
+                exchange.getResponseHeaders().set("retry-after-ms", String.valueOf(500 + random.nextInt(1500)));
+                sendJson(exchange, 429, "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"requests\"}}");
+                return;
+            }
+            if (roll < rateLimitRate + errorRate) {
+                injected.incrementAndGet();
+                sleep(latencyMs);
+                sendJson(exchange, 500, "{\"error\":{\"message\":\"The server had an error\"}}");
+                return;
+            }
+            if (roll < rateLimitRate + errorRate + hangRate) {
+                injected.incrementAndGet();
+                sleep(60_000); // Longer than any sane client deadline
+                return;
+            }
+
+            sleep(latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0));
+            String content = contentFor(prompt, random);
+            if (stream) {
+                stream(exchange, content);
+            } else {
+                ObjectNode body = objectMapper.createObjectNode();
+                body.put("object", "chat.completion");
+                body.putArray("choices").addObject().putObject("message")
+                        .put("role", "assistant").put("content", content);
+                exchange.getResponseHeaders().set("x-ratelimit-remaining-requests", "100");
+                sendJson(exchange, 200, objectMapper.writeValueAsString(body));
+            }
+        }
+    }
+
+    private String contentFor(String prompt, ThreadLocalRandom random) throws IOException {
+        Matcher m = ARRAY_SIZE.matcher(prompt);
+        String content;
+        if (m.find()) {
+            int n = Integer.parseInt(m.group(1));
+            ArrayNode array = objectMapper.createArrayNode();
+            for (int i = 0; i < n; i++) {
+                if (prompt.contains("multiple-choice")) {
+                    ObjectNode quiz = array.addObject();
+                    quiz.put("question", capitalize(sentence(random, 8)) + "?");
+                    ArrayNode options = quiz.putArray("options");
+                    for (int o = 0; o < 4; o++) {
+                        options.add(sentence(random, 2));
+                    }
+                    quiz.put("correctAnswer", random.nextInt(4));
+                } else {
+                    array.add(capitalize(sentence(random, 9)) + ".");
+                }
+            }
+            content = objectMapper.writeValueAsString(array);
+        } else {
+            content = capitalize(sentence(random, 10)) + ".";
+        }
+        return random.nextDouble() < fenceRate ? "```json\n" + content + "\n```" : content;
+    }
+
+    private void stream(HttpExchange exchange, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < content.length(); i += 4) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.putArray("choices").addObject().putObject("delta")
+                    .put("content", content.substring(i, Math.min(content.length(), i + 4)));
+            out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(chunkMs);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String sentence(ThreadLocalRandom random, int words) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                s.append(' ');
+            }
+            s.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return s.toString();
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+# Cold-start benchmark: launches the backend repeatedly in each startup mode and
+# records time to first request (launch until GET /api/time answers, polled
+# every 10ms) and resident memory (at that first answer and again after
+# SETTLE_SEC), plus Spring's own "Started ... in" figure. The JSON goes to
+# results/<rev>-<time>-startup.json; modes whose artifacts are missing are
+# skipped.
+#
+#   jar     fat jar, plain JVM            (mvn package)
+#   aot     fat jar, Spring AOT enabled   (mvn -Paot-cds package)
+#   cds     AOT plus the CDS archive      (mvn -Paot-cds package)
+#   native  GraalVM native executable     (mvn -Pnative native:compile)
+#
+#   ./startup.sh                 all available modes, RUNS=5 each
+#   ./startup.sh jar cds         selected modes
+#
+# RUNS, SETTLE_SEC, PORT and NODE_OPTS (JVM modes only) override the defaults.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+TARGET=$(realpath ../target)
+RUNS=${RUNS:-5}
+SETTLE_SEC=${SETTLE_SEC:-5}
+PORT=${PORT:-8080}
+NODE_OPTS=${NODE_OPTS:-}
+FAT_JAR="$TARGET/backend-0.0.1-SNAPSHOT.jar"
+CDS_JAR="$TARGET/cds/backend-0.0.1-SNAPSHOT-cds.jar"
+CDS_ARCHIVE="$TARGET/cds/app.jsa"
+NATIVE="$TARGET/backend"
+if [ $# -eq 0 ]; then
+    set -- jar aot cds native
+fi
+
+available() {
+    case "$1" in
+        jar) [ -f "$FAT_JAR" ] ;;
+        aot) [ -f "$FAT_JAR" ] && compgen -G "$TARGET/classes/com/blud/*__BeanFactoryRegistrations.class" > /dev/null ;;
+        cds) [ -f "$CDS_JAR" ] && [ -f "$CDS_ARCHIVE" ] ;;
+        native) [ -x "$NATIVE" ] ;;
+        *) echo "Unknown mode $1" >&2; exit 1 ;;
+    esac
+}
+
+# Command line for a mode; every run gets an empty working directory so feed
+# logs, caches and avatars start empty
+command_for() {
+    case "$1" in
+        jar) echo java $NODE_OPTS -jar "$FAT_JAR" ;;
+        aot) echo java $NODE_OPTS -Dspring.aot.enabled=true -jar "$FAT_JAR" ;;
+        cds) echo java $NODE_OPTS -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true -jar "$CDS_JAR" ;;
+        native) echo "$NATIVE" ;;
+    esac
+}
+
+rss_kb() {
+    awk '/^VmRSS:/ { print $2 }' "/proc/$1/status" 2>/dev/null || echo 0
+}
+
+version=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+stamp=$(date +%Y%m%d-%H%M%S)
+mkdir -p results
+out="results/${version}-${stamp}-startup.json"
+log=$(mktemp)
+trap 'rm -f "$log"' EXIT
+
+echo "[" > "$out"
+first=true
+for mode in "$@"; do
+    if ! available "$mode"; then
+        echo "== $mode: skipped, artifact not built"
+        continue
+    fi
+    echo "== $mode =="
+    for run in $(seq 1 "$RUNS"); do
+        workdir=$(mktemp -d)
+        start=$(date +%s%N)
+        # shellcheck disable=SC2046
+        (cd "$workdir" && exec $(command_for "$mode") --server.port="$PORT") > "$log" 2>&1 &
+        node=$!
+        until curl -sf -o /dev/null "http://localhost:$PORT/api/time"; do
+            if ! kill -0 $node 2>/dev/null; then
+                echo "Node exited during startup:"; tail -20 "$log"; exit 1
+            fi
+            sleep 0.01
+        done
+        ttfr_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+        rss_first=$(rss_kb $node)
+        sleep "$SETTLE_SEC"
+        rss_settled=$(rss_kb $node)
+        reported=$(grep -o 'Started BludApplication in [0-9.]*' "$log" | awk '{ print $4 }' || true)
+        kill $node && wait $node 2>/dev/null || true
+        rm -rf "$workdir"
+
+        printf '  run %d: first request %5d ms, RSS %4d MB (%d MB after %ss), Spring reports %ss\n' \
+            "$run" "$ttfr_ms" $((rss_first / 1024)) $((rss_settled / 1024)) "$SETTLE_SEC" "${reported:-?}"
+        $first || echo "," >> "$out"
+        first=false
+        printf '  {"mode": "%s", "run": %d, "timeToFirstRequestMs": %d, "rssAtFirstRequestKb": %d, "rssSettledKb": %d, "springStartedSec": %s}' \
+            "$mode" "$run" "$ttfr_ms" "$rss_first" "$rss_settled" "${reported:-null}" >> "$out"
+    done
+done
+printf '\n]\n' >> "$out"
+echo "Results written to $out"
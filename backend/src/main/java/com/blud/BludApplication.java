@@ -3,37 +3,77 @@ package com.blud;
 // Fixed package declaration triggers
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
-
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.Table;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import com.blud.avatar.AvatarStore;
+import com.blud.broker.PayloadEncoder;
+import com.blud.broker.SessionBackpressure;
+import com.blud.broker.SessionDelivery;
+import com.blud.cluster.ClusterCoordinator;
+import com.blud.cluster.ClusterRelay;
+import com.blud.feed.FeedHistory;
+import com.blud.feed.FeedShards;
+import com.blud.engine.EngineScheduler;
+import com.blud.engine.TickPolicy;
+import com.blud.heatmap.HeatmapFrame;
+import com.blud.heatmap.HeatmapModel;
+import com.blud.heatmap.HeatmapShards;
+import com.blud.metrics.BrokerMetrics;
+import com.blud.metrics.MetricsRegistry;
+import com.blud.quiz.LiveQuizzes;
+import com.blud.service.PrefetchBuffer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(WireTypeHints.class)
 public class BludApplication {
 
     public static void main(String[] args) {
@@ -42,6 +82,29 @@ public class BludApplication {
 
 }
 
+/**
+ * Reflection hints for a native image (mvn -Pnative). Controller bodies and
+ * {@code @MessageMapping} payloads are registered by Spring itself; these are
+ * the types serialized through SimpMessagingTemplate or read with an
+ * ObjectMapper directly. Private nested types are named rather than referenced.
+ */
+class WireTypeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] NESTED_TYPES = { "com.blud.quiz.LiveQuizzes$QuizKey",
+            "com.blud.quiz.LiveQuizzes$QuizTally", "com.blud.service.CompletionCache$JournalRecord" };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), Post.class,
+                RadioUpdate.class, DormStat.class, QuizEngine.QuizTemplate.class, HeatmapFrame.class,
+                com.blud.quiz.QuizResults.class);
+        for (String type : NESTED_TYPES) {
+            hints.reflection().registerTypeIfPresent(classLoader, type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+    }
+}
+
 // --- Security Configuration ---
 
 @Configuration
@@ -58,255 +121,209 @@ class SecurityConfig {
     }
 }
 
-// --- Database User Entity ---
-
-@Entity
-@Table(name = "users")
-class User {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    private String email;
-    private String name;
-    private String avatar;
-    private String provider; // "google" or "github"
-
-    // Profile Data
-    private String handle;
-    private String major;
-    private String dorm;
-
-    // Constructors
-    public User() {
-    }
-
-    public User(Long id, String email, String name, String avatar, String provider, String handle, String major,
-            String dorm) {
-        this.id = id;
-        this.email = email;
-        this.name = name;
-        this.avatar = avatar;
-        this.provider = provider;
-        this.handle = handle;
-        this.major = major;
-        this.dorm = dorm;
-    }
-
-    // Getters and Setters
-    public Long getId() {
-        return id;
-    }
-
-    public void setId(Long id) {
-        this.id = id;
-    }
-
-    public String getEmail() {
-        return email;
-    }
-
-    public void setEmail(String email) {
-        this.email = email;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getProvider() {
-        return provider;
-    }
-
-    public void setProvider(String provider) {
-        this.provider = provider;
-    }
-
-    public String getHandle() {
-        return handle;
-    }
-
-    public void setHandle(String handle) {
-        this.handle = handle;
-    }
+// --- Auth Controller ---
 
-    public String getMajor() {
-        return major;
-    }
+// --- User Controller ---
 
-    public void setMajor(String major) {
-        this.major = major;
-    }
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+class UserController {
 
-    public String getDorm() {
-        return dorm;
-    }
+    private final UserSyncService userSyncService;
+    private final UserCache userCache;
+    private final DormLeaderboard leaderboard;
+    private final int maxBatchItems;
 
-    public void setDorm(String dorm) {
-        this.dorm = dorm;
+    public UserController(UserSyncService userSyncService, UserCache userCache, DormLeaderboard leaderboard,
+            @Value("${blud.users.sync-batch.max-items:1000}") int maxBatchItems) {
+        this.userSyncService = userSyncService;
+        this.userCache = userCache;
+        this.leaderboard = leaderboard;
+        this.maxBatchItems = maxBatchItems;
     }
 
-    @jakarta.persistence.Lob
-    @jakarta.persistence.Column(length = 1000000)
-    public String getAvatar() {
-        return avatar;
-    }
+    @PostMapping("/sync")
+    public ResponseEntity<?> syncUser(@RequestBody UserSyncRequest request) {
+        AppliedSync applied = userSyncService.sync(request);
+        publish(applied);
+        return ResponseEntity.ok(applied.user);
+    }
+
+    /**
+     * Bulk sync: one IN query for the existing users, then every insert and
+     * update goes out in JDBC batches (see hibernate.jdbc.batch_size). Returns
+     * one result per item, in request order.
+     */
+    @PostMapping("/sync:batch")
+    public ResponseEntity<?> syncUsers(@RequestBody List<UserSyncRequest> requests) {
+        if (requests.size() > maxBatchItems) {
+            return ResponseEntity.badRequest()
+                    .body(java.util.Map.of("error", "At most " + maxBatchItems + " users per batch"));
+        }
 
-    public void setAvatar(String avatar) {
-        this.avatar = avatar;
+        java.util.List<java.util.Map<String, Object>> results = new java.util.ArrayList<>(requests.size());
+        for (AppliedSync applied : userSyncService.syncAll(requests, results)) {
+            applied.result.put("id", applied.user.getId());
+            publish(applied);
+        }
+        return ResponseEntity.ok(results);
     }
 
-    private String birthDate;
-    private String productivity;
-    private String successRate;
-
-    public String getBirthDate() {
-        return birthDate;
+    /**
+     * Runs once the sync has committed, so neither a reader refilling the cache
+     * nor a leaderboard subscriber can see a write that is later rolled back.
+     */
+    private void publish(AppliedSync applied) {
+        userCache.invalidate(applied.user.getEmail());
+        leaderboard.update(applied.oldDorm, applied.oldProductivity, applied.user.getDorm(),
+                applied.user.getProductivity());
     }
 
-    public void setBirthDate(String birthDate) {
-        this.birthDate = birthDate;
+    @GetMapping("/{email}")
+    public ResponseEntity<?> getUser(@PathVariable String email) {
+        return userCache.findByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
-    public String getProductivity() {
-        return productivity;
+    @GetMapping("/cache/stats")
+    public java.util.Map<String, Object> getCacheStats() {
+        return userCache.stats();
     }
+}
 
-    public void setProductivity(String productivity) {
-        this.productivity = productivity;
-    }
+// --- User Sync Service ---
 
-    public String getSuccessRate() {
-        return successRate;
-    }
+/**
+ * Writes user syncs, each call in its own transaction. The returned syncs carry
+ * what callers need to invalidate the cache and move leaderboard counts after
+ * the commit.
+ */
+@Service
+class UserSyncService {
 
-    public void setSuccessRate(String successRate) {
-        this.successRate = successRate;
-    }
+    private final UserRepository userRepository;
+    private final AvatarStore avatarStore;
 
-    // Builder pattern (manual implementation)
-    public static UserBuilder builder() {
-        return new UserBuilder();
+    public UserSyncService(UserRepository userRepository, AvatarStore avatarStore) {
+        this.userRepository = userRepository;
+        this.avatarStore = avatarStore;
     }
 
-    public static class UserBuilder {
-        private Long id;
-        private String email;
-        private String name;
-        private String avatar;
-        private String provider;
-        private String handle;
-        private String major;
-        private String dorm;
-
-        public UserBuilder id(Long id) {
-            this.id = id;
-            return this;
-        }
-
-        public UserBuilder email(String email) {
-            this.email = email;
-            return this;
-        }
-
-        public UserBuilder name(String name) {
-            this.name = name;
-            return this;
-        }
-
-        public UserBuilder avatar(String avatar) {
-            this.avatar = avatar;
-            return this;
-        }
-
-        public UserBuilder provider(String provider) {
-            this.provider = provider;
-            return this;
-        }
+    @Transactional
+    public AppliedSync sync(UserSyncRequest request) {
+        // Load a fresh entity: the cached instance is shared with concurrent readers
+        Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
+        User user = null;
+        String oldDorm = null;
+        Integer oldProductivity = null;
 
-        public UserBuilder handle(String handle) {
-            this.handle = handle;
-            return this;
+        if (userOpt.isPresent()) {
+            user = userOpt.get();
+            oldDorm = user.getDorm();
+            oldProductivity = user.getProductivity();
         }
+        user = applySync(user, request);
 
-        public UserBuilder major(String major) {
-            this.major = major;
-            return this;
+        userRepository.save(user);
+        return new AppliedSync(null, user, oldDorm, oldProductivity);
+    }
+
+    /**
+     * Adds one result per request to {@code results}, in request order, and
+     * returns the syncs that were written.
+     */
+    @Transactional
+    public List<AppliedSync> syncAll(List<UserSyncRequest> requests, List<java.util.Map<String, Object>> results) {
+        java.util.Set<String> emails = new java.util.HashSet<>();
+        for (UserSyncRequest request : requests) {
+            if (request != null && request.getEmail() != null) {
+                emails.add(request.getEmail());
+            }
         }
-
-        public UserBuilder dorm(String dorm) {
-            this.dorm = dorm;
-            return this;
+        java.util.Map<String, User> existing = new java.util.HashMap<>();
+        if (!emails.isEmpty()) {
+            for (User user : userRepository.findByEmailIn(emails)) {
+                existing.put(user.getEmail(), user);
+            }
         }
 
-        public User build() {
-            return new User(id, email, name, avatar, provider, handle, major, dorm);
+        java.util.List<User> toSave = new java.util.ArrayList<>();
+        java.util.List<AppliedSync> applied = new java.util.ArrayList<>();
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        for (UserSyncRequest request : requests) {
+            java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
+            results.add(result);
+            String email = request != null ? request.getEmail() : null;
+            result.put("email", email);
+            if (email == null || email.isBlank() || request.getName() == null || request.getName().isBlank()) {
+                result.put("status", "invalid");
+                continue;
+            }
+            if (!seen.add(email)) {
+                result.put("status", "duplicate"); // The first occurrence wins
+                continue;
+            }
+            User user = existing.get(email);
+            result.put("status", user != null ? "updated" : "created");
+            String oldDorm = user != null ? user.getDorm() : null;
+            Integer oldProductivity = user != null ? user.getProductivity() : null;
+            user = applySync(user, request);
+            toSave.add(user);
+            applied.add(new AppliedSync(result, user, oldDorm, oldProductivity));
         }
-    }
-}
-
-interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
-}
-
-// --- Auth Controller ---
-
-// --- User Controller ---
 
-@RestController
-@RequestMapping("/api/users")
-@CrossOrigin(origins = "*")
-class UserController {
-
-    private final UserRepository userRepository;
-
-    public UserController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+        userRepository.saveAll(toSave);
+        return applied;
     }
 
-    @PostMapping("/sync")
-    public ResponseEntity<?> syncUser(@RequestBody UserSyncRequest request) {
-        Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
-        User user;
-
-        if (userOpt.isPresent()) {
-            user = userOpt.get();
+    /**
+     * Applies a sync request to an existing user, or creates the user if null.
+     */
+    private User applySync(User user, UserSyncRequest request) {
+        if (user != null) {
             // Update fields if changed
             user.setName(request.getName());
-            user.setAvatar(request.getImage());
+            user.setAvatar(avatarStore.store(request.getImage()));
             if (user.getProvider() == null) {
                 user.setProvider("oauth");
             }
-        } else {
-            // Create new user
-            user = new User();
-            user.setEmail(request.getEmail());
-            user.setName(request.getName());
-            user.setAvatar(request.getImage());
-            user.setProvider("oauth");
-            user.setHandle(request.getName().toLowerCase().replace(" ", "_")); // Default handle
+            return user;
+        }
 
-            // Randomly assign a dorm for fun
-            String[] dorms = { "North Hall", "South Hall", "East Wing", "West Commons" };
-            user.setDorm(dorms[new java.util.Random().nextInt(dorms.length)]);
+        // Create new user
+        user = new User();
+        user.setEmail(request.getEmail());
+        user.setName(request.getName());
+        user.setAvatar(avatarStore.store(request.getImage()));
+        user.setProvider("oauth");
+        user.setHandle(request.getName().toLowerCase().replace(" ", "_")); // Default handle
 
-            user.setProductivity("50");
-            user.setSuccessRate("50");
-        }
+        // Randomly assign a dorm for fun
+        user.setDorm(User.DORMS.get(new java.util.Random().nextInt(User.DORMS.size())));
 
-        userRepository.save(user);
-        return ResponseEntity.ok(user);
+        user.setProductivity(50);
+        user.setSuccessRate(50);
+        return user;
     }
+}
 
-    @GetMapping("/{email}")
-    public ResponseEntity<?> getUser(@PathVariable String email) {
-        return userRepository.findByEmail(email)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+/**
+ * A written user sync: the saved user, the dorm and productivity it had
+ * before, and its batch result entry (null for a single sync).
+ */
+class AppliedSync {
+    final java.util.Map<String, Object> result;
+    final User user;
+    final String oldDorm;
+    final Integer oldProductivity;
+
+    AppliedSync(java.util.Map<String, Object> result, User user, String oldDorm, Integer oldProductivity) {
+        this.result = result;
+        this.user = user;
+        this.oldDorm = oldDorm;
+        this.oldProductivity = oldProductivity;
     }
 }
 
@@ -346,10 +363,125 @@ class UserSyncRequest {
 @EnableWebSocketMessageBroker
 class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private ClusterRelay clusterRelay;
+
+    @Autowired
+    private FeedHistory feedHistory;
+
+    @Autowired
+    private FeedShards feedShards;
+
+    @Autowired
+    private HeatmapModel heatmapModel;
+
+    @Autowired
+    private HeatmapShards heatmapShards;
+
+    @Autowired
+    private LiveQuizzes liveQuizzes;
+
+    @Autowired
+    private PayloadEncoder payloadEncoder;
+
+    @Autowired
+    private SessionBackpressure sessionBackpressure;
+
+    @Autowired
+    private BrokerMetrics brokerMetrics;
+
+    @Value("${blud.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${blud.broker.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${blud.broker.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${blud.broker.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${blud.broker.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${blud.broker.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${blud.broker.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+
+    @Value("${blud.threads.virtual.channel-pool-size:1024}")
+    private int virtualChannelPoolSize;
+
+    @Autowired
+    private Environment environment;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if ("fanout".equals(brokerMode)) {
+            // FanoutBrokerMessageHandler owns /topic; the simple broker keeps the per-session
+            // /queue replies and answers CONNECT and heartbeats
+            config.enableSimpleBroker("/queue");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
+        // Server-originated /topic messages are copied to the other cluster nodes;
+        // feed posts (local or relayed) are kept for replay and pagination, and copied
+        // to the dorm and zone-range shards that have subscribers on this node; quiz
+        // answer keys and tallies travel between nodes on /cluster destinations
+        config.configureBrokerChannel().interceptors(clusterRelay, feedHistory, feedShards, heatmapModel,
+                heatmapShards, liveQuizzes, brokerMetrics);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Records the blud-encoding each session asks for on CONNECT
+        registration.interceptors(payloadEncoder);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            registration.taskExecutor(virtualThreadPool("clientInboundChannel-"))
+                    .queueCapacity(inboundQueueCapacity);
+            return;
+        }
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Encode first so queued messages are already in the session's format
+        registration.interceptors(payloadEncoder, brokerMetrics, sessionBackpressure);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            registration.taskExecutor(virtualThreadPool("clientOutboundChannel-"))
+                    .queueCapacity(outboundQueueCapacity);
+            return;
+        }
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    /**
+     * Still a ThreadPoolTaskExecutor (the channel registration and the backpressure
+     * drain expect one), but its workers are virtual threads, so a handler blocked
+     * on JPA or a socket write parks instead of holding a platform thread and the
+     * pool can be far larger than the platform pools above.
+     */
+    private ThreadPoolTaskExecutor virtualThreadPool(String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory());
+        executor.setCorePoolSize(virtualChannelPoolSize);
+        executor.setMaxPoolSize(virtualChannelPoolSize);
+        return executor;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(sessionBackpressure::decorate);
     }
 
     @Override
@@ -357,6 +489,34 @@ class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Plain WebSocket endpoint for clients that want binary (CBOR) frames
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(PayloadEncoder.binaryFramesHandshake());
+    }
+}
+
+// --- Virtual Threads ---
+
+/**
+ * With {@code spring.threads.virtual.enabled=true} on Java 21+, Spring Boot moves
+ * Tomcat's request threads to virtual threads and {@link WebSocketConfig} does the
+ * same for the STOMP channels. The remaining {@code @Scheduled} methods (engines
+ * have their own threads in EngineScheduler) would otherwise run on the broker's
+ * heartbeat scheduler (the only TaskScheduler bean), so this registers the
+ * scheduler Spring picks by name when there are several. On older JVMs the
+ * property is ignored and everything stays on platform threads.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+class VirtualThreadConfig {
+
+    @Bean
+    public SimpleAsyncTaskScheduler taskScheduler() {
+        SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
     }
 }
 
@@ -371,30 +531,105 @@ class TrafficEngine {
     @Autowired
     private com.blud.service.OpenAIService openAIService;
 
+    @Autowired
+    private ClusterCoordinator cluster;
+
+    @Autowired
+    private HeatmapModel heatmap;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Autowired
+    private EngineScheduler engines;
+
+    @Value("${blud.engines.heatmap-pulse.period-ms:2000}")
+    private long pulsePeriod;
+
+    @Value("${blud.engines.heatmap-pulse.policy:skip}")
+    private String pulsePolicy;
+
+    @Value("${blud.heatmap.flush-ms:1000}")
+    private long flushPeriod;
+
+    @Value("${blud.engines.heatmap-flush.policy:coalesce}")
+    private String flushPolicy;
+
+    @Value("${blud.engines.posts.period-ms:5000}")
+    private long postPeriod;
+
+    @Value("${blud.engines.posts.policy:skip}")
+    private String postPolicy;
+
+    @Value("${blud.prefetch.confessions.batch-size:10}")
+    private int confessionBatchSize;
+
+    @Value("${blud.prefetch.confessions.low-watermark:5}")
+    private int confessionLowWatermark;
+
+    @Value("${blud.prefetch.confessions.high-watermark:30}")
+    private int confessionHighWatermark;
+
     private final Random random = new Random();
+    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+
+    private PrefetchBuffer<String> confessionBuffer;
+
+    @PostConstruct
+    public void start() {
+        confessionBuffer = new PrefetchBuffer<>("confessions", confessionLowWatermark, confessionHighWatermark,
+                this::fetchConfessionBatch);
+        if (cluster.isLeader()) {
+            confessionBuffer.refill();
+        }
+        // Separate engine threads: a slow post (AI stream setup) never holds up the heatmap
+        engines.schedule("heatmap-pulse", pulsePeriod, TickPolicy.fromString(pulsePolicy), this::pulseHeatmap);
+        engines.schedule("heatmap-flush", flushPeriod, TickPolicy.fromString(flushPolicy), this::flushHeatmap);
+        engines.schedule("posts", postPeriod, TickPolicy.fromString(postPolicy), this::generatePost);
+    }
 
-    @Scheduled(fixedRate = 2000)
     public void pulseHeatmap() {
-        int zoneId = random.nextInt(64);
+        if (!cluster.isLeader()) {
+            return; // Followers receive the leader's updates through the cluster relay
+        }
+        int zoneId = random.nextInt(HeatmapModel.ZONES);
         double activity = 0.5 + (random.nextDouble() * 0.5);
-        HeatmapUpdate update = new HeatmapUpdate(zoneId, activity);
-        template.convertAndSend("/topic/heatmap", update);
+        heatmap.set(zoneId, activity);
+    }
+
+    public void flushHeatmap() {
+        if (!cluster.isLeader()) {
+            return;
+        }
+        // One frame for every zone touched since the last flush
+        HeatmapFrame delta = heatmap.drainDelta();
+        if (delta != null) {
+            template.convertAndSend(HeatmapModel.DESTINATION, delta);
+        }
     }
 
-    @Scheduled(fixedRate = 5000)
     public void generatePost() {
+        if (!cluster.isLeader()) {
+            return;
+        }
         boolean isAnonymous = random.nextDouble() < 0.5;
-        String postContent;
-        String author;
-
-        if (isAnonymous) {
-            author = "The Void";
-            String prompt = "Write a 1-sentence cryptic, surreal, glitchy university confession or observation from 'The Void'. "
-                    +
-                    "Max 100 chars. No quotes. Examples: 'The architecture building is breathing.', 'I found a door that wasn't here yesterday.'";
-            postContent = openAIService.generateContent(prompt).replace("\"", "");
+        if (isAnonymous && openAIService.isStreamingEnabled()) {
+            streamConfession();
+            return;
+        }
+
+        // O(1) dequeue; an empty buffer (API slow or down) falls through to a regular post
+        String confession = isAnonymous ? confessionBuffer.poll() : null;
+        if (isAnonymous && confession == null) {
+            metrics.counter("blud_engine_fallbacks_total", "Ticks that published canned content", "engine")
+                    .increment("confessions");
+        }
+
+        if (confession != null) {
+            publishPost("The Void", confession, true);
         } else {
-            String[] authors = { "Design Studio", "Late Night Crew", "Philosophy Club", "Music Dept", "North Hall" };
+            String[] authors = { "Design Studio", "Late Night Crew", "Philosophy Club", "Music Dept", "North Hall",
+                    "South Hall", "East Wing", "West Commons" };
             String[] contents = {
                     "Who left the lights on in studio 4?",
                     "Jazz session starting in 5 mins.",
@@ -407,270 +642,418 @@ class TrafficEngine {
                     "Studio smells like spray paint and regret.",
                     "Is the library open 24h yet?"
             };
-            author = authors[random.nextInt(authors.length)];
-            postContent = contents[random.nextInt(contents.length)];
+            String author = authors[random.nextInt(authors.length)];
+            String postContent = contents[random.nextInt(contents.length)];
+            publishPost(author, postContent, false);
+        }
+    }
+
+    /**
+     * Streams a single confession: partial "typing" posts share the final post's id
+     * so clients replace them in place as tokens arrive.
+     */
+    private void streamConfession() {
+        long id = System.currentTimeMillis();
+        String prompt = "Write a 1-sentence cryptic, surreal, glitchy university confession or observation from 'The Void'. "
+                +
+                "Max 100 chars. No quotes. Examples: 'The architecture building is breathing.', 'I found a door that wasn't here yesterday.'";
+        openAIService.streamContentAsync(prompt,
+                partial -> template.convertAndSend("/topic/feed", new Post(id, "The Void", "typing...",
+                        partial.replace("\"", ""), "typing", null, null, true, null, null)))
+                .thenAccept(content -> template.convertAndSend("/topic/feed", new Post(id, "The Void", "Just now",
+                        content.replace("\"", ""), "text", null, null, true, null, null)));
+    }
+
+    private CompletableFuture<List<String>> fetchConfessionBatch() {
+        String prompt = "Write " + confessionBatchSize
+                + " distinct 1-sentence cryptic, surreal, glitchy university confessions or observations from 'The Void'. "
+                +
+                "Max 100 chars each. Examples: 'The architecture building is breathing.', 'I found a door that wasn't here yesterday.' "
+                +
+                "Return strictly valid JSON with no markdown formatting: an array of " + confessionBatchSize + " strings.";
+        return openAIService.generateContentAsync(prompt).thenApply(this::parseConfessions);
+    }
+
+    private List<String> parseConfessions(String jsonResponse) {
+        List<String> parsed;
+        try {
+            parsed = objectMapper.readValue(com.blud.service.OpenAIService.stripCodeFences(jsonResponse),
+                    new TypeReference<List<String>>() {
+                    });
+        } catch (Exception e) {
+            System.err.println("Failed to parse AI confessions: " + e.getMessage());
+            return java.util.Collections.emptyList();
+        }
+
+        List<String> valid = new java.util.ArrayList<>();
+        for (String confession : parsed) {
+            if (confession == null) {
+                continue;
+            }
+            String cleaned = confession.replace("\"", "").trim();
+            if (!cleaned.isEmpty() && cleaned.length() <= 140) {
+                valid.add(cleaned);
+            }
         }
+        return valid;
+    }
 
+    private void publishPost(String author, String postContent, boolean isAnonymous) {
         Post post = new Post(System.currentTimeMillis(), author, "Just now", postContent, "text", null, null,
                 isAnonymous, null, null);
+        if (User.DORMS.contains(author)) {
+            post.setDorm(author); // Dorm posts only reach that dorm's feed shard
+        }
         template.convertAndSend("/topic/feed", post);
     }
 }
 
-class HeatmapUpdate {
-    private int id;
-    private double activity;
-
-    public HeatmapUpdate() {
-    }
+// --- Stats Controller ---
 
-    public HeatmapUpdate(int id, double activity) {
-        this.id = id;
-        this.activity = activity;
-    }
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "*")
+class StatsController {
 
-    public int getId() {
-        return id;
-    }
+    private final DormLeaderboard leaderboard;
+    private final ScoreLedger scoreLedger;
 
-    public void setId(int id) {
-        this.id = id;
+    public StatsController(DormLeaderboard leaderboard, ScoreLedger scoreLedger) {
+        this.leaderboard = leaderboard;
+        this.scoreLedger = scoreLedger;
     }
 
-    public double getActivity() {
-        return activity;
+    @GetMapping("/dorms")
+    public java.util.List<DormStat> getDormStats() {
+        // Maintained incrementally; changes are also pushed on /topic/leaderboard
+        return leaderboard.getRanking();
     }
 
-    public void setActivity(double activity) {
-        this.activity = activity;
+    @PostMapping("/score")
+    public ResponseEntity<?> updateScore(@RequestBody ScoreUpdate request) {
+        // In a real app, use SecurityContext for user ID
+        // Gamification: +2 XP productivity, +1 success rate, both capped at 100
+        java.util.Map<String, Object> score = scoreLedger.record(request.getEmail(), 2, 1);
+        if (score == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(score);
     }
 }
 
-class Post {
-    private long id;
-    private String author;
-    private String time;
-    private String content;
-    private String type;
-    private String image;
-    private String duration;
-    private boolean isAnonymous;
-    private java.util.List<String> options;
-    private Integer correctAnswer;
+class ScoreUpdate {
+    private String email;
+    private boolean correct;
 
-    public Post() {
+    public String getEmail() {
+        return email;
     }
 
-    public Post(long id, String author, String time, String content, String type, String image, String duration,
-            boolean isAnonymous, java.util.List<String> options, Integer correctAnswer) {
-        this.id = id;
-        this.author = author;
-        this.time = time;
-        this.content = content;
-        this.type = type;
-        this.image = image;
-        this.duration = duration;
-        this.isAnonymous = isAnonymous;
-        this.options = options;
-        this.correctAnswer = correctAnswer;
+    public void setEmail(String email) {
+        this.email = email;
     }
 
-    // ... existing getters setters ...
-
-    public long getId() {
-        return id;
+    public boolean isCorrect() {
+        return correct;
     }
 
-    public void setId(long id) {
-        this.id = id;
+    public void setCorrect(boolean correct) {
+        this.correct = correct;
     }
+}
 
-    public String getAuthor() {
-        return author;
-    }
+// --- Quiz Answers ---
 
-    public void setAuthor(String author) {
-        this.author = author;
-    }
+/**
+ * STOMP answers to live quizzes: {@code SEND /app/quiz/{id}/answer} with
+ * {@code {"option": 2, "email": "..."}}. The verdict goes back to the answering
+ * session only, on "/user/queue/quiz"; aggregate results are on
+ * "/topic/quiz/{id}". Correct answers are scored through the ledger's deferred
+ * path, so a burst of answers costs one JDBC batch per flush.
+ */
+@Controller
+class QuizAnswerController {
 
-    public String getTime() {
-        return time;
-    }
+    private final LiveQuizzes liveQuizzes;
+    private final ScoreLedger scoreLedger;
 
-    public void setTime(String time) {
-        this.time = time;
+    public QuizAnswerController(LiveQuizzes liveQuizzes, ScoreLedger scoreLedger) {
+        this.liveQuizzes = liveQuizzes;
+        this.scoreLedger = scoreLedger;
     }
 
-    public String getContent() {
-        return content;
+    @MessageMapping("/quiz/{id}/answer")
+    @SendToUser(destinations = "/queue/quiz", broadcast = false)
+    public QuizVerdict answer(@DestinationVariable long id, QuizAnswer answer, SimpMessageHeaderAccessor headers) {
+        LiveQuizzes.Outcome outcome = liveQuizzes.answer(id, answer.getOption(), headers.getSessionId(),
+                answer.getEmail());
+        java.util.Map<String, Object> score = null;
+        if (outcome == LiveQuizzes.Outcome.CORRECT && answer.getEmail() != null) {
+            // Same reward as POST /api/stats/score: +2 XP productivity, +1 success rate
+            score = scoreLedger.recordDeferred(answer.getEmail(), 2, 1);
+        }
+        return new QuizVerdict(id, answer.getOption(), outcome.name().toLowerCase(), score);
     }
+}
 
-    public void setContent(String content) {
-        this.content = content;
-    }
+class QuizAnswer {
+    private int option = -1;
+    private String email;
 
-    public String getType() {
-        return type;
+    public int getOption() {
+        return option;
     }
 
-    public void setType(String type) {
-        this.type = type;
+    public void setOption(int option) {
+        this.option = option;
     }
 
-    public String getImage() {
-        return image;
+    public String getEmail() {
+        return email;
     }
 
-    public void setImage(String image) {
-        this.image = image;
+    public void setEmail(String email) {
+        this.email = email;
     }
+}
 
-    public String getDuration() {
-        return duration;
-    }
+class QuizVerdict {
+    private final long quizId;
+    private final int option;
+    private final String outcome;
+    private final java.util.Map<String, Object> score; // Projected scores after a correct answer
 
-    public void setDuration(String duration) {
-        this.duration = duration;
+    public QuizVerdict(long quizId, int option, String outcome, java.util.Map<String, Object> score) {
+        this.quizId = quizId;
+        this.option = option;
+        this.outcome = outcome;
+        this.score = score;
     }
 
-    public boolean getIsAnonymous() {
-        return isAnonymous;
+    public long getQuizId() {
+        return quizId;
     }
 
-    public void setIsAnonymous(boolean isAnonymous) {
-        this.isAnonymous = isAnonymous;
+    public int getOption() {
+        return option;
     }
 
-    public java.util.List<String> getOptions() {
-        return options;
+    public String getOutcome() {
+        return outcome;
     }
 
-    public void setOptions(java.util.List<String> options) {
-        this.options = options;
+    public java.util.Map<String, Object> getScore() {
+        return score;
     }
+}
 
-    public Integer getCorrectAnswer() {
-        return correctAnswer;
-    }
+// --- Avatar Controller ---
 
-    public void setCorrectAnswer(Integer correctAnswer) {
-        this.correctAnswer = correctAnswer;
+@RestController
+@RequestMapping("/api/avatars")
+@CrossOrigin(origins = "*")
+class AvatarController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private final AvatarStore avatarStore;
+
+    public AvatarController(AvatarStore avatarStore) {
+        this.avatarStore = avatarStore;
+    }
+
+    /**
+     * Content-addressed, so the hash is a strong ETag and the response never
+     * changes. Bytes go out via Tomcat's sendfile when the connector supports it,
+     * otherwise via {@code FileChannel.transferTo} into the response stream.
+     */
+    @GetMapping("/{hash}")
+    public void getAvatar(@PathVariable String hash, @RequestParam(required = false) String size,
+            jakarta.servlet.http.HttpServletRequest request, jakarta.servlet.http.HttpServletResponse response)
+            throws java.io.IOException {
+        boolean thumbnail = "thumb".equals(size);
+        java.nio.file.Path file = avatarStore.resolve(hash, thumbnail);
+        if (file == null) {
+            response.sendError(404);
+            return;
+        }
+        boolean isThumbnail = !file.getFileName().toString().equals(hash);
+        String etag = "\"" + hash + (isThumbnail ? "-thumb" : "") + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "public, max-age=31536000, immutable");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(304);
+            return;
+        }
+
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file)) {
+            long length = channel.size();
+            java.nio.ByteBuffer head = java.nio.ByteBuffer.allocate(12);
+            channel.read(head, 0);
+            String contentType = AvatarStore.contentType(java.util.Arrays.copyOf(head.array(), head.position()));
+            response.setContentType(contentType != null ? contentType : "application/octet-stream");
+            response.setContentLengthLong(length);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+                request.setAttribute("org.apache.tomcat.sendfile.end", length);
+                return;
+            }
+            java.nio.channels.WritableByteChannel out = java.nio.channels.Channels
+                    .newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
     }
 }
 
-// --- Stats Controller ---
+// --- Feed Controller ---
 
 @RestController
-@RequestMapping("/api/stats")
+@RequestMapping("/api/feed")
 @CrossOrigin(origins = "*")
-class StatsController {
+class FeedController {
 
-    private final UserRepository userRepository;
+    private final FeedHistory feedHistory;
 
-    public StatsController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public FeedController(FeedHistory feedHistory) {
+        this.feedHistory = feedHistory;
     }
 
-    @GetMapping("/dorms")
-    public java.util.List<DormStat> getDormStats() {
-        java.util.List<User> users = userRepository.findAll();
+    @GetMapping
+    public ResponseEntity<String> getFeed(@RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) String dorm) {
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        String page = feedHistory.page(before != null ? before : Long.MAX_VALUE, pageSize,
+                dorm != null && !dorm.isBlank() ? dorm : null);
+        return ResponseEntity.ok()
+                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
+                .body(page);
+    }
+}
 
-        // Group by dorm and calculate average productivity + success rate for a "Meta
-        // Score"
-        // For now kept simple
-        java.util.Map<String, Double> dormAvg = users.stream()
-                .filter(u -> u.getDorm() != null && !u.getDorm().isEmpty())
-                .filter(u -> u.getProductivity() != null && u.getProductivity().matches("\\d+"))
-                .collect(java.util.stream.Collectors.groupingBy(
-                        User::getDorm,
-                        java.util.stream.Collectors.averagingInt(u -> Integer.parseInt(u.getProductivity()))));
+// --- Session Stats Controller ---
 
-        return dormAvg.entrySet().stream()
-                .map(e -> new DormStat(e.getKey(), Math.round(e.getValue())))
-                .sorted((a, b) -> Long.compare(b.getScore(), a.getScore())) // Descending
-                .collect(java.util.stream.Collectors.toList());
-    }
+@RestController
+@RequestMapping("/api/sessions")
+@CrossOrigin(origins = "*")
+class SessionStatsController {
 
-    @PostMapping("/score")
-    public ResponseEntity<?> updateScore(@RequestBody ScoreUpdate request) {
-        // In a real app, use SecurityContext for user ID
-        java.util.Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-
-            // Gamification Logic:
-            // 1. Boost Productivity (0-100)
-            int currentProd = 0;
-            try {
-                currentProd = Integer.parseInt(user.getProductivity());
-            } catch (Exception e) {
-            }
-            int newProd = Math.min(100, currentProd + 2); // +2 XP
-            user.setProductivity(String.valueOf(newProd));
-
-            // 2. Boost Success Rate
-            int currentSuccess = 0;
-            try {
-                currentSuccess = Integer.parseInt(user.getSuccessRate());
-            } catch (Exception e) {
-            }
-            int newSuccess = Math.min(100, currentSuccess + 1);
-            user.setSuccessRate(String.valueOf(newSuccess));
+    private final SessionBackpressure sessionBackpressure;
 
-            userRepository.save(user);
-            return ResponseEntity.ok(user);
-        }
-        return ResponseEntity.notFound().build();
+    public SessionStatsController(SessionBackpressure sessionBackpressure) {
+        this.sessionBackpressure = sessionBackpressure;
+    }
+
+    @GetMapping("/backpressure")
+    public List<java.util.Map<String, Object>> getBackpressure() {
+        return sessionBackpressure.snapshot();
     }
 }
 
-class DormStat {
-    private String name;
-    private long score;
+// --- AI Status Controller ---
 
-    public DormStat(String name, long score) {
-        this.name = name;
-        this.score = score;
-    }
+@RestController
+@RequestMapping("/api/ai")
+@CrossOrigin(origins = "*")
+class AiStatusController {
 
-    public String getName() {
-        return name;
+    private final com.blud.service.OpenAIService openAIService;
+
+    public AiStatusController(com.blud.service.OpenAIService openAIService) {
+        this.openAIService = openAIService;
     }
 
-    public long getScore() {
-        return score;
+    @GetMapping("/status")
+    public java.util.Map<String, Object> getStatus() {
+        return openAIService.getStatus();
     }
 }
 
-class ScoreUpdate {
-    private String email;
-    private boolean correct;
+// --- Engine Status Controller ---
 
-    public String getEmail() {
-        return email;
+@RestController
+@RequestMapping("/api/engines")
+@CrossOrigin(origins = "*")
+class EngineStatusController {
+
+    private final EngineScheduler engines;
+
+    public EngineStatusController(EngineScheduler engines) {
+        this.engines = engines;
     }
 
-    public void setEmail(String email) {
-        this.email = email;
+    @GetMapping
+    public List<java.util.Map<String, Object>> getEngines() {
+        return engines.snapshot();
     }
+}
 
-    public boolean isCorrect() {
-        return correct;
+// --- Metrics Controller ---
+
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+class MetricsController {
+
+    private final MetricsRegistry metrics;
+
+    public MetricsController(MetricsRegistry metrics) {
+        this.metrics = metrics;
     }
 
-    public void setCorrect(boolean correct) {
-        this.correct = correct;
+    // Prometheus text format: scrape this path
+    @GetMapping(produces = MetricsRegistry.CONTENT_TYPE)
+    public String scrape() {
+        return metrics.scrape();
     }
 }
 
 // --- Radio Engine ---
 
+/**
+ * The playlist runs on a fixed timetable: track {@code n} starts at
+ * {@code epoch + n * TRACK_DURATION}, so the current track is a pure function of
+ * the clock and needs no mutable state or locking, and every cluster node agrees
+ * on it. Clients get one event per track change carrying the absolute start
+ * time (plus a snapshot when they subscribe) and interpolate progress locally
+ * against {@code GET /api/time}.
+ */
 @Controller
 class RadioEngine {
 
+    private static final String DESTINATION = "/topic/radio";
+
     @Autowired
     private SimpMessagingTemplate template;
 
+    @Autowired
+    private ClusterCoordinator cluster;
+
+    @Autowired
+    private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Autowired
+    private EngineScheduler engines;
+
+    @Value("${blud.radio.epoch-ms:0}")
+    private long epoch;
+
+    @Value("${blud.radio.check-ms:250}")
+    private long checkPeriod;
+
+    @Value("${blud.engines.radio.policy:coalesce}")
+    private String checkPolicy;
+
     private final String[] playlist = {
             "Aphex Twin - #3",
             "Nujabes - Aruarian Dance",
@@ -679,39 +1062,78 @@ class RadioEngine {
             "Tycho - Awake"
     };
 
-    private int currentTrackIndex = 0;
-    private long trackStartTime = System.currentTimeMillis();
     private final long TRACK_DURATION = 180000; // 3 minutes per track for demo
 
-    @Scheduled(fixedRate = 1000)
-    public void broadcastRadioState() {
-        long now = System.currentTimeMillis();
-        long elapsed = now - trackStartTime;
+    // Last slot announced on /topic/radio; only touched by the engine thread
+    private long announcedSlot = -1;
 
-        if (elapsed > TRACK_DURATION) {
-            currentTrackIndex = (currentTrackIndex + 1) % playlist.length;
-            trackStartTime = now;
-            elapsed = 0;
+    @PostConstruct
+    public void start() {
+        engines.schedule("radio", checkPeriod, TickPolicy.fromString(checkPolicy), this::announceTrackChange);
+    }
+
+    /**
+     * Cheap local clock check; a message goes out only when the slot changes.
+     */
+    public void announceTrackChange() {
+        long slot = slotAt(System.currentTimeMillis());
+        if (slot == announcedSlot) {
+            return;
+        }
+        announcedSlot = slot;
+        if (cluster.isLeader()) {
+            template.convertAndSend(DESTINATION, stateOf(slot));
         }
+    }
 
-        RadioUpdate update = new RadioUpdate(
-                playlist[currentTrackIndex],
-                elapsed,
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (!DESTINATION.equals(subscribe.getDestination())) {
+            return;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(stateOf(slotAt(System.currentTimeMillis())));
+            SessionDelivery.sendToSubscription(clientOutboundChannel, subscribe.getSessionId(),
+                    subscribe.getSubscriptionId(), DESTINATION, json);
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            System.err.println("Failed to serialize radio snapshot: " + e.getMessage());
+        }
+    }
+
+    private long slotAt(long now) {
+        return Math.floorDiv(now - epoch, TRACK_DURATION);
+    }
+
+    private RadioUpdate stateOf(long slot) {
+        return new RadioUpdate(
+                playlist[(int) Math.floorMod(slot, (long) playlist.length)],
+                epoch + slot * TRACK_DURATION,
                 TRACK_DURATION,
                 "LIVE");
-        template.convertAndSend("/topic/radio", update);
+    }
+}
+
+@RestController
+@RequestMapping("/api/time")
+@CrossOrigin(origins = "*")
+class ClockController {
+
+    @GetMapping
+    public java.util.Map<String, Long> now() {
+        return java.util.Map.of("serverTime", System.currentTimeMillis());
     }
 }
 
 class RadioUpdate {
     private String track;
-    private long elapsed;
+    private long startedAt;
     private long total;
     private String status;
 
-    public RadioUpdate(String track, long elapsed, long total, String status) {
+    public RadioUpdate(String track, long startedAt, long total, String status) {
         this.track = track;
-        this.elapsed = elapsed;
+        this.startedAt = startedAt;
         this.total = total;
         this.status = status;
     }
@@ -720,8 +1142,8 @@ class RadioUpdate {
         return track;
     }
 
-    public long getElapsed() {
-        return elapsed;
+    public long getStartedAt() {
+        return startedAt;
     }
 
     public long getTotal() {
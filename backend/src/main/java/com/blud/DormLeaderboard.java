@@ -0,0 +1,157 @@
+package com.blud;
+
+import com.blud.broker.SessionDelivery;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running per-dorm productivity sums and counts, so the leaderboard is
+ * O(dorms) instead of a scan over every user. Seeded from the database once at
+ * startup and then kept current by the user and score endpoints. Whenever the
+ * ranking as shown (dorm order and rounded scores) changes it is pushed to
+ * "/topic/leaderboard"; new subscribers get the current ranking right away.
+ * <p>
+ * Pushes and subscribe snapshots are sent while holding the lock that orders
+ * the updates, so they leave in the order the rankings were computed: two
+ * concurrent updates cannot publish in reverse, and a snapshot is never older
+ * than a push sent before it. The lock is a ReentrantLock rather than a monitor
+ * because those sends can block on the broker and are reached from under the
+ * ScoreLedger stripe locks; in virtual-thread mode a monitor held across them
+ * would pin the carrier thread.
+ */
+@Component
+public class DormLeaderboard {
+
+    static final String DESTINATION = "/topic/leaderboard";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SimpMessagingTemplate template;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, long[]> totals = new HashMap<>(); // dorm -> {sum, count}
+    private List<DormStat> lastRanking = new ArrayList<>();
+
+    @PostConstruct
+    public void load() {
+        // Two columns per user; avatars and the rest of the row stay in the database
+        List<Object[]> rows = userRepository.findDormProductivity();
+        lock.lock();
+        try {
+            for (Object[] row : rows) {
+                add((String) row[0], (Integer) row[1], 1);
+            }
+            lastRanking = computeRanking();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves one user's contribution from its old dorm/productivity to the new
+     * one. Pass nulls for the old values of a new user.
+     */
+    public void update(String oldDorm, Integer oldProductivity, String newDorm, Integer newProductivity) {
+        lock.lock();
+        try {
+            add(oldDorm, oldProductivity, -1);
+            add(newDorm, newProductivity, 1);
+            List<DormStat> ranking = computeRanking();
+            if (sameRanking(ranking, lastRanking)) {
+                return;
+            }
+            lastRanking = ranking;
+            template.convertAndSend(DESTINATION, ranking);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<DormStat> getRanking() {
+        lock.lock();
+        try {
+            return lastRanking;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (!DESTINATION.equals(subscribe.getDestination())) {
+            return;
+        }
+        lock.lock();
+        try {
+            SessionDelivery.sendToSubscription(clientOutboundChannel, subscribe.getSessionId(),
+                    subscribe.getSubscriptionId(), DESTINATION, objectMapper.writeValueAsBytes(lastRanking));
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize leaderboard: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Callers hold {@link #lock}.
+     */
+    private void add(String dorm, Integer productivity, int sign) {
+        if (dorm == null || dorm.isEmpty() || productivity == null) {
+            return;
+        }
+        long[] t = totals.computeIfAbsent(dorm, d -> new long[2]);
+        t[0] += sign * (long) productivity;
+        t[1] += sign;
+        if (t[1] <= 0) {
+            totals.remove(dorm);
+        }
+    }
+
+    private List<DormStat> computeRanking() {
+        List<DormStat> ranking = new ArrayList<>(totals.size());
+        for (Map.Entry<String, long[]> e : totals.entrySet()) {
+            ranking.add(new DormStat(e.getKey(), Math.round((double) e.getValue()[0] / e.getValue()[1])));
+        }
+        ranking.sort((a, b) -> Long.compare(b.getScore(), a.getScore())); // Descending
+        return ranking;
+    }
+
+    private static boolean sameRanking(List<DormStat> a, List<DormStat> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getName().equals(b.get(i).getName()) || a.get(i).getScore() != b.get(i).getScore()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
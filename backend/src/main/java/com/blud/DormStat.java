@@ -0,0 +1,19 @@
+package com.blud;
+
+public class DormStat {
+    private String name;
+    private long score;
+
+    public DormStat(String name, long score) {
+        this.name = name;
+        this.score = score;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getScore() {
+        return score;
+    }
+}
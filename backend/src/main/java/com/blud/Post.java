@@ -0,0 +1,122 @@
+package com.blud;
+
+public class Post {
+    private long id;
+    private String author;
+    private String time;
+    private String content;
+    private String type;
+    private String image;
+    private String duration;
+    private boolean isAnonymous;
+    private java.util.List<String> options;
+    private Integer correctAnswer;
+    private String dorm; // Null for campus-wide posts
+
+    public Post() {
+    }
+
+    public Post(long id, String author, String time, String content, String type, String image, String duration,
+            boolean isAnonymous, java.util.List<String> options, Integer correctAnswer) {
+        this.id = id;
+        this.author = author;
+        this.time = time;
+        this.content = content;
+        this.type = type;
+        this.image = image;
+        this.duration = duration;
+        this.isAnonymous = isAnonymous;
+        this.options = options;
+        this.correctAnswer = correctAnswer;
+    }
+
+    // ... existing getters setters ...
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public boolean getIsAnonymous() {
+        return isAnonymous;
+    }
+
+    public void setIsAnonymous(boolean isAnonymous) {
+        this.isAnonymous = isAnonymous;
+    }
+
+    public java.util.List<String> getOptions() {
+        return options;
+    }
+
+    public void setOptions(java.util.List<String> options) {
+        this.options = options;
+    }
+
+    public Integer getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public void setCorrectAnswer(Integer correctAnswer) {
+        this.correctAnswer = correctAnswer;
+    }
+
+    public String getDorm() {
+        return dorm;
+    }
+
+    public void setDorm(String dorm) {
+        this.dorm = dorm;
+    }
+}
@@ -1,12 +1,24 @@
 package com.blud;
 
+import com.blud.cluster.ClusterCoordinator;
+import com.blud.engine.EngineScheduler;
+import com.blud.engine.TickPolicy;
+import com.blud.metrics.MetricsRegistry;
+import com.blud.quiz.LiveQuizzes;
+import com.blud.service.OpenAIService;
+import com.blud.service.PrefetchBuffer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class QuizEngine {
@@ -17,49 +29,62 @@ public class QuizEngine {
         @Autowired
         private com.blud.service.OpenAIService openAIService;
 
-        private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        @Autowired
+        private ClusterCoordinator cluster;
 
-        @Scheduled(fixedRate = 10000)
-        public void generateQuiz() {
-                // "AI" Generation
-                String prompt = "Generate a challenging multiple-choice question about Computer Science, History, Philosophy, or Logic. "
-                                +
-                                "Return strictly valid JSON with no markdown formatting. " +
-                                "Format: {\"question\": \"...\", \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correctAnswer\": 0} "
-                                +
-                                "where correctAnswer is the 0-based index of the correct option.";
+        @Autowired
+        private MetricsRegistry metrics;
 
-                String jsonResponse = openAIService.generateContent(prompt);
+        @Autowired
+        private EngineScheduler engines;
 
-                try {
-                        // Sanitize response if it contains markdown code blocks
-                        if (jsonResponse.contains("```json")) {
-                                jsonResponse = jsonResponse.replace("```json", "").replace("```", "").trim();
-                        } else if (jsonResponse.contains("```")) {
-                                jsonResponse = jsonResponse.replace("```", "").trim();
-                        }
+        @Autowired
+        private LiveQuizzes liveQuizzes;
 
-                        QuizTemplate quizData = objectMapper.readValue(jsonResponse, QuizTemplate.class);
+        @Value("${blud.engines.quiz.period-ms:10000}")
+        private long period;
 
-                        Post quizPost = new Post(
-                                        System.currentTimeMillis(),
-                                        "Neural Feed",
-                                        "Pop Quiz",
-                                        quizData.question,
-                                        "quiz",
-                                        null,
-                                        null,
-                                        false,
-                                        quizData.options,
-                                        quizData.correctAnswer);
+        @Value("${blud.engines.quiz.policy:skip}")
+        private String policy;
 
-                        template.convertAndSend("/topic/feed", quizPost);
+        @Value("${blud.prefetch.quiz.batch-size:5}")
+        private int batchSize;
 
-                } catch (Exception e) {
-                        System.err.println("Failed to parse AI Quiz: " + e.getMessage());
+        @Value("${blud.prefetch.quiz.low-watermark:2}")
+        private int lowWatermark;
+
+        @Value("${blud.prefetch.quiz.high-watermark:15}")
+        private int highWatermark;
+
+        private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+
+        private PrefetchBuffer<QuizTemplate> quizBuffer;
+
+        @PostConstruct
+        public void initBuffer() {
+                quizBuffer = new PrefetchBuffer<>("quiz", lowWatermark, highWatermark, this::fetchQuizBatch);
+                if (cluster.isLeader()) {
+                        quizBuffer.refill();
+                }
+                engines.schedule("quiz", period, TickPolicy.fromString(policy), this::generateQuiz);
+        }
+
+        public void generateQuiz() {
+                if (!cluster.isLeader()) {
+                        return; // Only the cluster leader spends OpenAI quota
+                }
+
+                // O(1) dequeue; AI round trips happen in the background prefetch
+                QuizTemplate quizData = quizBuffer.poll();
+                if (quizData == null) {
+                        System.err.println("Quiz buffer empty, sending offline quiz");
+                        metrics.counter("blud_engine_fallbacks_total", "Ticks that published canned content",
+                                        "engine").increment("quiz");
                         // Fallback: Send a predefined quiz so the user sees SOMETHING
+                        long id = System.currentTimeMillis();
+                        liveQuizzes.open(id, 4, 1);
                         Post fallbackPost = new Post(
-                                        System.currentTimeMillis(),
+                                        id,
                                         "Neural Feed",
                                         "Pop Quiz (Offline Mode)",
                                         "The AI is currently resting (Quota Exceeded). What is the default port for Spring Boot?",
@@ -68,12 +93,72 @@ public class QuizEngine {
                                         null,
                                         false,
                                         Arrays.asList("8000", "8080", "3000", "5432"),
-                                        1);
+                                        null);
                         template.convertAndSend("/topic/feed", fallbackPost);
+                        return;
+                }
+
+                // The answer is checked server-side (/app/quiz/{id}/answer), never broadcast
+                long id = System.currentTimeMillis();
+                liveQuizzes.open(id, quizData.options.size(), quizData.correctAnswer);
+                Post quizPost = new Post(
+                                id,
+                                "Neural Feed",
+                                "Pop Quiz",
+                                quizData.question,
+                                "quiz",
+                                null,
+                                null,
+                                false,
+                                quizData.options,
+                                null);
+
+                template.convertAndSend("/topic/feed", quizPost);
+        }
+
+        private CompletableFuture<List<QuizTemplate>> fetchQuizBatch() {
+                // "AI" Generation
+                String prompt = "Generate " + batchSize
+                                + " distinct challenging multiple-choice questions about Computer Science, History, Philosophy, or Logic. "
+                                +
+                                "Return strictly valid JSON with no markdown formatting: an array of " + batchSize
+                                + " objects. " +
+                                "Format: [{\"question\": \"...\", \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correctAnswer\": 0}] "
+                                +
+                                "where correctAnswer is the 0-based index of the correct option.";
+
+                return openAIService.generateContentAsync(prompt).thenApply(json -> parseQuizBatch(objectMapper, json));
+        }
+
+        static List<QuizTemplate> parseQuizBatch(com.fasterxml.jackson.databind.ObjectMapper objectMapper,
+                        String jsonResponse) {
+                List<QuizTemplate> parsed;
+                try {
+                        parsed = objectMapper.readValue(OpenAIService.stripCodeFences(jsonResponse),
+                                        new TypeReference<List<QuizTemplate>>() {
+                                        });
+                } catch (Exception e) {
+                        System.err.println("Failed to parse AI Quiz batch: " + e.getMessage());
+                        return Collections.emptyList();
+                }
+
+                List<QuizTemplate> valid = new ArrayList<>();
+                for (QuizTemplate quiz : parsed) {
+                        if (isValid(quiz)) {
+                                valid.add(quiz);
+                        }
                 }
+                return valid;
+        }
+
+        private static boolean isValid(QuizTemplate quiz) {
+                return quiz != null
+                                && quiz.question != null && !quiz.question.isBlank()
+                                && quiz.options != null && quiz.options.size() >= 2
+                                && quiz.correctAnswer >= 0 && quiz.correctAnswer < quiz.options.size();
         }
 
-        private static class QuizTemplate {
+        static class QuizTemplate {
                 public String question;
                 public List<String> options;
                 public int correctAnswer;
@@ -0,0 +1,249 @@
+package com.blud;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies score increments (productivity and success rate, each capped at 100).
+ * <p>
+ * By default every increment is one atomic {@code UPDATE} in the database. With
+ * {@code blud.scores.write-behind=true} increments are summed in memory instead
+ * and flushed as one JDBC batch every {@code blud.scores.flush-ms} and on
+ * shutdown. {@link #recordDeferred} always takes the write-behind path; it is
+ * meant for bursty sources such as quiz answers over STOMP, where a write per
+ * answer would not keep up. Users are spread over lock stripes by email, so concurrent answers
+ * for different users rarely contend. The stripes are ReentrantLocks rather than
+ * monitors because the synchronous UPDATE runs while one is held, which would
+ * pin a virtual thread to its carrier. A user's current scores are read once
+ * (through {@link UserCache}) and then projected in memory until the next flush;
+ * the dorm leaderboard is updated from the same values.
+ */
+@Component
+public class ScoreLedger {
+
+    private static final int CAP = 100;
+    private static final int STRIPES = 16;
+
+    private static final String INCREMENT_SQL = "update users set "
+            + "productivity = case when coalesce(productivity, 0) + ? > 100 then 100 else coalesce(productivity, 0) + ? end, "
+            + "success_rate = case when coalesce(success_rate, 0) + ? > 100 then 100 else coalesce(success_rate, 0) + ? end "
+            + "where email = ?";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DormLeaderboard leaderboard;
+
+    @Value("${blud.scores.write-behind:false}")
+    private boolean writeBehind;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ScoreLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds the increments to the user's scores and returns the resulting values
+     * (projected, in write-behind mode), or null if there is no such user.
+     */
+    public Map<String, Object> record(String email, int productivity, int successRate) {
+        return record(email, productivity, successRate, writeBehind);
+    }
+
+    /**
+     * Like {@link #record}, but always summed in memory until the next flush.
+     */
+    public Map<String, Object> recordDeferred(String email, int productivity, int successRate) {
+        return record(email, productivity, successRate, true);
+    }
+
+    private Map<String, Object> record(String email, int productivity, int successRate, boolean deferred) {
+        if (email == null) {
+            return null;
+        }
+        Stripe stripe = stripeFor(email);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(email);
+            if (entry == null) {
+                entry = load(email);
+                if (entry == null) {
+                    return null;
+                }
+            }
+
+            if (!deferred) {
+                // The UPDATE is atomic on its own; the stripe keeps the leaderboard delta exact
+                userRepository.incrementScore(email, productivity, successRate);
+                userCache.invalidate(email);
+                int newProductivity = cap(entry.productivity + productivity);
+                leaderboard.update(entry.dorm, entry.ranked(), entry.dorm, newProductivity);
+                // A user with deferred increments stays cached; keep its flushed base current
+                entry.productivity = newProductivity;
+                entry.hasProductivity = true;
+                entry.successRate = cap(entry.successRate + successRate);
+                return view(email, entry.dorm, cap(newProductivity + entry.pendingProductivity),
+                        cap(entry.successRate + entry.pendingSuccessRate));
+            }
+
+            stripe.entries.put(email, entry);
+            entry.pendingProductivity += productivity;
+            entry.pendingSuccessRate += successRate;
+            return view(email, entry.dorm, cap(entry.productivity + entry.pendingProductivity),
+                    cap(entry.successRate + entry.pendingSuccessRate));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${blud.scores.flush-ms:2000}")
+    public void flush() {
+        // Stripes only hold users with deferred increments, so this is cheap when there are none
+        for (Stripe stripe : stripes) {
+            flush(stripe);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flush(Stripe stripe) {
+        List<Flushed> batch = new ArrayList<>();
+        stripe.lock.lock();
+        try {
+            for (Entry entry : stripe.entries.values()) {
+                if (entry.pendingProductivity != 0 || entry.pendingSuccessRate != 0) {
+                    batch.add(new Flushed(entry, entry.pendingProductivity, entry.pendingSuccessRate));
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Flushed f : batch) {
+            args.add(new Object[] { f.productivity, f.productivity, f.successRate, f.successRate, f.entry.email });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+        } catch (RuntimeException e) {
+            System.err.println("Score flush failed, keeping " + batch.size() + " pending users: " + e.getMessage());
+            return;
+        }
+
+        stripe.lock.lock();
+        try {
+            for (Flushed f : batch) {
+                Entry entry = f.entry;
+                int newProductivity = cap(entry.productivity + f.productivity);
+                leaderboard.update(entry.dorm, entry.ranked(), entry.dorm, newProductivity);
+                entry.productivity = newProductivity;
+                entry.hasProductivity = true;
+                entry.successRate = cap(entry.successRate + f.successRate);
+                entry.pendingProductivity -= f.productivity;
+                entry.pendingSuccessRate -= f.successRate;
+                userCache.invalidate(entry.email);
+            }
+            // Settled users are re-read on their next answer, so the cache only holds active users
+            Iterator<Entry> it = stripe.entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.pendingProductivity == 0 && entry.pendingSuccessRate == 0) {
+                    it.remove();
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Entry load(String email) {
+        return userCache.findByEmail(email)
+                .map(u -> new Entry(email, u.getDorm(), u.getProductivity(),
+                        u.getSuccessRate() != null ? u.getSuccessRate() : 0))
+                .orElse(null);
+    }
+
+    private Stripe stripeFor(String email) {
+        return stripes[Math.floorMod(email.hashCode(), STRIPES)];
+    }
+
+    private static int cap(int value) {
+        return Math.min(CAP, value);
+    }
+
+    private static Map<String, Object> view(String email, String dorm, int productivity, int successRate) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("email", email);
+        view.put("dorm", dorm);
+        view.put("productivity", productivity);
+        view.put("successRate", successRate);
+        return view;
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Entry> entries = new HashMap<>();
+    }
+
+    private static final class Entry {
+        final String email;
+        final String dorm;
+        int productivity; // As last read or flushed
+        boolean hasProductivity; // A null column counts as 0 but is not on the leaderboard yet
+        int successRate;
+        int pendingProductivity;
+        int pendingSuccessRate;
+
+        Entry(String email, String dorm, Integer productivity, int successRate) {
+            this.email = email;
+            this.dorm = dorm;
+            this.productivity = productivity != null ? productivity : 0;
+            this.hasProductivity = productivity != null;
+            this.successRate = successRate;
+        }
+
+        Integer ranked() {
+            return hasProductivity ? productivity : null;
+        }
+    }
+
+    private static final class Flushed {
+        final Entry entry;
+        final int productivity;
+        final int successRate;
+
+        Flushed(Entry entry, int productivity, int successRate) {
+            this.entry = entry;
+            this.productivity = productivity;
+            this.successRate = successRate;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.blud;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "users", indexes = @jakarta.persistence.Index(name = "ux_users_email", columnList = "email", unique = true))
+public class User {
+    @Id
+    // Sequence (not IDENTITY) so Hibernate can batch inserts; ids are handed out 50 at a time
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @jakarta.persistence.SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
+    private Long id;
+
+    private String email;
+    private String name;
+    // URL only: AvatarStore URL for uploads, provider URL for OAuth pictures
+    @jakarta.persistence.Column(length = 2048)
+    private String avatar;
+    private String provider; // "google" or "github"
+
+    // Profile Data
+    private String handle;
+    private String major;
+    private String dorm;
+
+    static final java.util.List<String> DORMS = java.util.List.of("North Hall", "South Hall", "East Wing",
+            "West Commons");
+
+    // Constructors
+    public User() {
+    }
+
+    public User(Long id, String email, String name, String avatar, String provider, String handle, String major,
+            String dorm) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.avatar = avatar;
+        this.provider = provider;
+        this.handle = handle;
+        this.major = major;
+        this.dorm = dorm;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public void setHandle(String handle) {
+        this.handle = handle;
+    }
+
+    public String getMajor() {
+        return major;
+    }
+
+    public void setMajor(String major) {
+        this.major = major;
+    }
+
+    public String getDorm() {
+        return dorm;
+    }
+
+    public void setDorm(String dorm) {
+        this.dorm = dorm;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
+    private String birthDate;
+    // Entity saves never write the scores; they change only through ScoreLedger's increments
+    @jakarta.persistence.Column(updatable = false)
+    private Integer productivity;
+    @jakarta.persistence.Column(updatable = false)
+    private Integer successRate;
+
+    public String getBirthDate() {
+        return birthDate;
+    }
+
+    public void setBirthDate(String birthDate) {
+        this.birthDate = birthDate;
+    }
+
+    public Integer getProductivity() {
+        return productivity;
+    }
+
+    public void setProductivity(Integer productivity) {
+        this.productivity = productivity;
+    }
+
+    public Integer getSuccessRate() {
+        return successRate;
+    }
+
+    public void setSuccessRate(Integer successRate) {
+        this.successRate = successRate;
+    }
+
+    // Builder pattern (manual implementation)
+    public static UserBuilder builder() {
+        return new UserBuilder();
+    }
+
+    public static class UserBuilder {
+        private Long id;
+        private String email;
+        private String name;
+        private String avatar;
+        private String provider;
+        private String handle;
+        private String major;
+        private String dorm;
+
+        public UserBuilder id(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public UserBuilder email(String email) {
+            this.email = email;
+            return this;
+        }
+
+        public UserBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public UserBuilder avatar(String avatar) {
+            this.avatar = avatar;
+            return this;
+        }
+
+        public UserBuilder provider(String provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        public UserBuilder handle(String handle) {
+            this.handle = handle;
+            return this;
+        }
+
+        public UserBuilder major(String major) {
+            this.major = major;
+            return this;
+        }
+
+        public UserBuilder dorm(String dorm) {
+            this.dorm = dorm;
+            return this;
+        }
+
+        public User build() {
+            return new User(id, email, name, avatar, provider, handle, major, dorm);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.blud;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded LRU read-through cache of users by email. Writers invalidate the
+ * email after saving (or after changing scores behind the entity's back); a
+ * load that raced with an invalidation is returned but not cached, so a stale
+ * row never outlives the write that replaced it. Cached users are shared and
+ * must not be modified: invalidate first, then change and save.
+ */
+@Component
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, User> entries;
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public UserCache(@Value("${blud.users.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        // Access-ordered map evicts the least recently used email
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                if (size() > UserCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<User> findByEmail(String email) {
+        long seen;
+        synchronized (this) {
+            User cached = entries.get(email);
+            if (cached != null) {
+                hits++;
+                return Optional.of(cached);
+            }
+            misses++;
+            seen = invalidations;
+        }
+        Optional<User> loaded = userRepository.findByEmail(email);
+        if (loaded.isPresent()) {
+            synchronized (this) {
+                if (invalidations == seen) {
+                    entries.put(email, loaded.get());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidate(String email) {
+        invalidations++;
+        entries.remove(email);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        long lookups = hits + misses;
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package com.blud;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepository extends JpaRepository<User, Long> {
+    Optional<User> findByEmail(String email);
+
+    List<User> findByEmailIn(java.util.Collection<String> emails);
+
+    @Query("select u.dorm, u.productivity from User u where u.dorm is not null")
+    List<Object[]> findDormProductivity();
+
+    /**
+     * Atomic capped increment; no entity is read or written.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set "
+            + "u.productivity = case when coalesce(u.productivity, 0) + :productivity > 100 then 100 "
+            + "else coalesce(u.productivity, 0) + :productivity end, "
+            + "u.successRate = case when coalesce(u.successRate, 0) + :successRate > 100 then 100 "
+            + "else coalesce(u.successRate, 0) + :successRate end "
+            + "where u.email = :email")
+    int incrementScore(@Param("email") String email, @Param("productivity") int productivity,
+            @Param("successRate") int successRate);
+}
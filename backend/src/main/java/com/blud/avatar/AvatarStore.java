@@ -0,0 +1,179 @@
+package com.blud.avatar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed avatar files. Inline {@code data:} images from the client
+ * are decoded, named by the SHA-256 of their bytes and written once; a PNG
+ * thumbnail is generated next to the original at the same time. Users only
+ * keep the resulting URL, so user JSON stays small and identical uploads share
+ * one file. External avatar URLs (OAuth provider pictures) are kept as they are.
+ */
+@Component
+public class AvatarStore {
+
+    public static final String URL_PREFIX = "/api/avatars/";
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String THUMB_SUFFIX = "-thumb.png";
+
+    private final Path dir;
+    private final int maxBytes;
+    private final int thumbnailSize;
+
+    public AvatarStore(
+            @Value("${blud.avatars.dir:data/avatars}") String dir,
+            @Value("${blud.avatars.max-bytes:5242880}") int maxBytes,
+            @Value("${blud.avatars.thumbnail-size:128}") int thumbnailSize) {
+        this.dir = Paths.get(dir);
+        this.maxBytes = maxBytes;
+        this.thumbnailSize = thumbnailSize;
+    }
+
+    /**
+     * Returns the URL to store on the user: the store URL for an inline image,
+     * the value itself for anything else, or null for an unusable image.
+     */
+    public String store(String image) {
+        if (image == null) {
+            return null;
+        }
+        int own = image.indexOf(URL_PREFIX);
+        if (own >= 0 && HASH.matcher(image.substring(own + URL_PREFIX.length())).matches()) {
+            return image.substring(own); // Our own URL echoed back, possibly made absolute by the client
+        }
+        if (!image.startsWith("data:")) {
+            return image;
+        }
+        int comma = image.indexOf(',');
+        if (comma < 0 || !image.substring(0, comma).endsWith(";base64")) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(image.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length > maxBytes || contentType(bytes) == null) {
+            return null; // Only serve real images from our own origin
+        }
+
+        String hash = sha256(bytes);
+        try {
+            Files.createDirectories(dir);
+            Path original = dir.resolve(hash);
+            if (!Files.exists(original)) {
+                writeAtomically(original, bytes);
+                writeThumbnail(hash, bytes);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to store avatar: " + e.getMessage());
+            return null;
+        }
+        return URL_PREFIX + hash;
+    }
+
+    /**
+     * The stored file for a hash (thumbnail if requested and available), or null.
+     */
+    public Path resolve(String hash, boolean thumbnail) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return null;
+        }
+        if (thumbnail) {
+            Path thumb = dir.resolve(hash + THUMB_SUFFIX);
+            if (Files.isRegularFile(thumb)) {
+                return thumb;
+            }
+        }
+        Path original = dir.resolve(hash);
+        return Files.isRegularFile(original) ? original : null;
+    }
+
+    /**
+     * Sniffs the image type from the leading magic bytes.
+     */
+    public static String contentType(byte[] head) {
+        if (startsWith(head, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 'R', 'I', 'F', 'F') && head.length >= 12 && head[8] == 'W' && head[9] == 'E'
+                && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private void writeThumbnail(String hash, byte[] bytes) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(bytes));
+            if (source == null) {
+                return; // No ImageIO reader (e.g. WebP); the original is served instead
+            }
+            double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            BufferedImage thumb = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = thumb.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+            g.dispose();
+            Path tmp = Files.createTempFile(dir, hash, ".tmp");
+            ImageIO.write(thumb, "png", tmp.toFile());
+            Files.move(tmp, dir.resolve(hash + THUMB_SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to generate avatar thumbnail: " + e.getMessage());
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
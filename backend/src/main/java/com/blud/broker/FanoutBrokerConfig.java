@@ -0,0 +1,36 @@
+package com.blud.broker;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+
+import java.util.List;
+
+/**
+ * Registers the ring-buffer fan-out broker for "/topic" when
+ * {@code blud.broker.mode=fanout}. The default ("simple") keeps Spring's
+ * {@code enableSimpleBroker}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "blud.broker.mode", havingValue = "fanout")
+public class FanoutBrokerConfig {
+
+    @Bean
+    public FanoutBrokerMessageHandler fanoutBrokerMessageHandler(
+            @Qualifier("clientInboundChannel") SubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            @Qualifier("brokerChannel") SubscribableChannel brokerChannel,
+            @Value("${blud.broker.fanout.ring-size:1024}") int ringSize,
+            @Value("${blud.broker.fanout.dispatch-threads:4}") int dispatchThreads,
+            @Value("${blud.broker.fanout.max-topics:1024}") int maxTopics) {
+        FanoutBrokerMessageHandler handler = new FanoutBrokerMessageHandler(clientInboundChannel,
+                clientOutboundChannel, brokerChannel, List.of("/topic"), ringSize, dispatchThreads, maxTopics);
+        // Keep per-session delivery order across the multi-threaded outbound channel
+        handler.setPreservePublishOrder(true);
+        return handler;
+    }
+}
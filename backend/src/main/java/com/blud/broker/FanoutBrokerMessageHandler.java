@@ -0,0 +1,341 @@
+package com.blud.broker;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process broker tuned for a few hot topics with many subscribers.
+ * <p>
+ * Publishing only writes the already-serialized payload into the topic's ring
+ * buffer, so producers (the scheduled engines) never pay for fan-out. A
+ * dispatcher drains each ring in order and, for every subscriber, hands the
+ * whole pending batch to the client outbound channel back to back, where
+ * {@link SessionBackpressure} queues it and writes it to the socket as one
+ * WebSocket message. The payload bytes are shared by all subscribers; only the
+ * small per-session header map is created per delivery. A dispatcher that
+ * falls more than one ring behind skips the oldest messages and counts them as
+ * overruns.
+ * <p>
+ * A ring exists only while its destination has subscribers, and at most
+ * {@code maxTopics} do at once: destinations are chosen by clients (and every
+ * quiz gets its own), so a subscription that would open one more is refused.
+ * <p>
+ * CONNECT/heartbeat handling stays with Spring's simple broker (see
+ * {@code WebSocketConfig}); this handler only owns subscriptions and messages
+ * under its destination prefixes.
+ */
+public class FanoutBrokerMessageHandler extends AbstractBrokerMessageHandler {
+
+    private final int ringSize;
+    private final int dispatchThreads;
+    private final int maxTopics;
+    private final Map<String, TopicRing> topics = new ConcurrentHashMap<>();
+    private final Map<String, List<Subscription>> sessions = new ConcurrentHashMap<>();
+    private ExecutorService dispatcher;
+
+    public FanoutBrokerMessageHandler(SubscribableChannel clientInboundChannel, MessageChannel clientOutboundChannel,
+            SubscribableChannel brokerChannel, Collection<String> destinationPrefixes, int ringSize,
+            int dispatchThreads, int maxTopics) {
+        super(clientInboundChannel, clientOutboundChannel, brokerChannel, destinationPrefixes);
+        // Power of two so the slot index is a mask
+        this.ringSize = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.dispatchThreads = Math.max(1, dispatchThreads);
+        this.maxTopics = Math.max(1, maxTopics);
+    }
+
+    @Override
+    protected void startInternal() {
+        AtomicInteger threadCount = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, r -> {
+            Thread t = new Thread(r, "fanout-dispatch-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        publishBrokerAvailableEvent();
+    }
+
+    @Override
+    protected void stopInternal() {
+        publishBrokerUnavailableEvent();
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+
+        if (type == SimpMessageType.DISCONNECT) {
+            removeSession(sessionId);
+            return;
+        }
+        if (destination == null || !checkDestinationPrefix(destination)) {
+            return;
+        }
+
+        if (type == SimpMessageType.SUBSCRIBE) {
+            String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+            if (sessionId == null || subscriptionId == null) {
+                return;
+            }
+            Subscription subscription = new Subscription(sessionId, subscriptionId, destination);
+            if (!subscribe(subscription)) {
+                logger.warn("Refusing subscription to " + destination + ": " + maxTopics + " topics open");
+                return;
+            }
+            sessions.computeIfAbsent(sessionId, id -> new java.util.concurrent.CopyOnWriteArrayList<>())
+                    .add(subscription);
+        } else if (type == SimpMessageType.UNSUBSCRIBE) {
+            String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+            List<Subscription> subscriptions = sessions.get(sessionId);
+            if (subscriptions != null) {
+                for (Subscription s : subscriptions) {
+                    if (s.subscriptionId.equals(subscriptionId)) {
+                        subscriptions.remove(s);
+                        unsubscribe(s);
+                    }
+                }
+            }
+        } else if (type == SimpMessageType.MESSAGE) {
+            TopicRing topic = topics.get(destination);
+            if (topic != null && message.getPayload() instanceof byte[] payload) {
+                topic.publish(payload, SimpMessageHeaderAccessor.wrap(message).getContentType());
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getOverrunCount() {
+        long total = 0;
+        for (TopicRing topic : topics.values()) {
+            total += topic.overruns.get();
+        }
+        return total;
+    }
+
+    private void removeSession(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        List<Subscription> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            for (Subscription s : subscriptions) {
+                unsubscribe(s);
+            }
+        }
+    }
+
+    /**
+     * Adds the subscription to its destination's ring, opening the ring if there
+     * is room for one more. Runs under the map's lock for the destination, as
+     * does {@link #unsubscribe}, so a ring is never dropped while being joined.
+     */
+    private boolean subscribe(Subscription subscription) {
+        boolean[] added = new boolean[1];
+        topics.compute(subscription.destination, (destination, topic) -> {
+            if (topic == null) {
+                if (topics.size() >= maxTopics) {
+                    return null;
+                }
+                topic = new TopicRing(destination);
+            }
+            topic.add(subscription);
+            added[0] = true;
+            return topic;
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes the subscription, and the destination's ring with its last one.
+     */
+    private void unsubscribe(Subscription subscription) {
+        topics.computeIfPresent(subscription.destination, (destination, topic) -> {
+            topic.remove(subscription);
+            return topic.isEmpty() ? null : topic;
+        });
+    }
+
+    private void deliver(Subscription subscription, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(subscription.sessionId);
+        accessor.setSubscriptionId(subscription.subscriptionId);
+        accessor.setDestination(subscription.destination);
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        accessor.setLeaveMutable(true);
+        try {
+            getClientOutboundChannelForSession(subscription.sessionId)
+                    .send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        } catch (RuntimeException e) {
+            logger.debug("Failed to deliver to session " + subscription.sessionId + ": " + e.getMessage());
+        }
+    }
+
+    private static final class Subscription {
+        final String sessionId;
+        final String subscriptionId;
+        final String destination;
+
+        Subscription(String sessionId, String subscriptionId, String destination) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+        }
+    }
+
+    /**
+     * Ring of recent payloads for one destination. Subscribers are split into one
+     * shard per dispatcher thread by session; each shard drains the ring with its
+     * own cursor, and a shard's drain task is serialized by its {@code scheduled}
+     * flag, so every session sees the topic in publish order.
+     */
+    private final class TopicRing {
+        final String destination;
+        final byte[][] payloads = new byte[ringSize][];
+        final MimeType[] contentTypes = new MimeType[ringSize];
+        final int mask = ringSize - 1;
+        final AtomicLong head = new AtomicLong();
+        final AtomicLong overruns = new AtomicLong();
+        final Shard[] shards = new Shard[dispatchThreads];
+
+        TopicRing(String destination) {
+            this.destination = destination;
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Shard();
+            }
+        }
+
+        void add(Subscription subscription) {
+            shardFor(subscription).add(subscription);
+        }
+
+        void remove(Subscription subscription) {
+            shardFor(subscription).remove(subscription);
+        }
+
+        boolean isEmpty() {
+            for (Shard shard : shards) {
+                if (shard.subscribers.length > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void publish(byte[] payload, MimeType contentType) {
+            synchronized (payloads) {
+                long seq = head.get();
+                int slot = (int) (seq & mask);
+                payloads[slot] = payload;
+                contentTypes[slot] = contentType;
+                head.set(seq + 1);
+            }
+            for (Shard shard : shards) {
+                shard.schedule();
+            }
+        }
+
+        private Shard shardFor(Subscription subscription) {
+            return shards[Math.floorMod(subscription.sessionId.hashCode(), shards.length)];
+        }
+
+        private final class Shard {
+            final AtomicBoolean scheduled = new AtomicBoolean();
+            volatile Subscription[] subscribers = new Subscription[0];
+            volatile long cursor;
+
+            synchronized void add(Subscription subscription) {
+                Subscription[] updated = Arrays.copyOf(subscribers, subscribers.length + 1);
+                updated[subscribers.length] = subscription;
+                subscribers = updated;
+            }
+
+            synchronized void remove(Subscription subscription) {
+                List<Subscription> updated = new ArrayList<>(Arrays.asList(subscribers));
+                if (updated.remove(subscription)) {
+                    subscribers = updated.toArray(new Subscription[0]);
+                }
+            }
+
+            void schedule() {
+                if (subscribers.length == 0) {
+                    cursor = head.get(); // Nobody to deliver to; don't replay old messages later
+                    return;
+                }
+                if (scheduled.compareAndSet(false, true)) {
+                    dispatcher.execute(this::drain);
+                }
+            }
+
+            void drain() {
+                while (true) {
+                    long end;
+                    int count;
+                    byte[][] batch;
+                    MimeType[] batchTypes;
+                    synchronized (payloads) {
+                        end = head.get();
+                        long start = cursor;
+                        if (end - start > ringSize) {
+                            overruns.addAndGet(end - start - ringSize);
+                            start = end - ringSize;
+                        }
+                        count = (int) (end - start);
+                        batch = new byte[count][];
+                        batchTypes = new MimeType[count];
+                        for (int i = 0; i < count; i++) {
+                            int slot = (int) ((start + i) & mask);
+                            batch[i] = payloads[slot];
+                            batchTypes[i] = contentTypes[slot];
+                        }
+                    }
+                    cursor = end;
+
+                    // Per-session batches: back to back, so the session's queue drains them in one write
+                    for (Subscription subscriber : subscribers) {
+                        for (int i = 0; i < count; i++) {
+                            deliver(subscriber, batch[i], batchTypes[i]);
+                        }
+                    }
+
+                    scheduled.set(false);
+                    if (head.get() == cursor || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.blud.broker;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Folds two undelivered messages for the same subscription into one, for
+ * destinations whose messages are partial updates: the result must leave the
+ * client in the same state as receiving both in order. Used by
+ * {@link SessionBackpressure} in place of dropping when a session falls behind.
+ */
+public interface MessageMerger {
+
+    boolean supports(String destination);
+
+    /**
+     * The merged message, or null if these two cannot be merged. Payloads are in
+     * the session's {@link PayloadEncoding}, named by the
+     * {@link PayloadEncoder#ENCODING_HEADER} native header.
+     */
+    Message<?> merge(Message<?> older, Message<?> newer);
+}
@@ -0,0 +1,128 @@
+package com.blud.broker;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session payload encoding. Installed on the client inbound channel it
+ * records the encoding each session asked for on CONNECT; on the client
+ * outbound channel it re-encodes MESSAGE payloads for sessions that did not
+ * stay on plain JSON. Sessions without a preference cost one map lookup.
+ * <p>
+ * Every subscriber of a topic receives the same payload array, so each
+ * encoding keeps a weak identity cache from source payload to encoded bytes
+ * and a fan-out re-encodes once, not once per session.
+ */
+@Component
+public class PayloadEncoder implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "blud-encoding";
+
+    /**
+     * Session attribute set by {@link #binaryFramesHandshake()} on endpoints
+     * that do not go through SockJS, which cannot carry binary frames.
+     */
+    static final String BINARY_FRAMES = "bludBinaryFrames";
+
+    private final Map<String, PayloadEncoding> sessions = new ConcurrentHashMap<>();
+    private final Map<PayloadEncoding, Map<byte[], byte[]>> encoded = new EnumMap<>(PayloadEncoding.class);
+
+    public PayloadEncoder() {
+        for (PayloadEncoding encoding : PayloadEncoding.values()) {
+            // byte[] uses identity equals/hashCode, so this is an identity cache
+            encoded.put(encoding, Collections.synchronizedMap(new WeakHashMap<>()));
+        }
+    }
+
+    public static HandshakeInterceptor binaryFramesHandshake() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(BINARY_FRAMES, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(SimpMessageHeaderAccessor.wrap(message));
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE || sessions.isEmpty()) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        PayloadEncoding encoding = sessionId != null ? sessions.get(sessionId) : null;
+        if (encoding == null || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+
+        byte[] payload;
+        try {
+            payload = encode(encoding, json);
+        } catch (IOException e) {
+            return message; // Not JSON; deliver unchanged
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(encoding.getContentType());
+        accessor.setNativeHeader(ENCODING_HEADER, encoding.getHeaderValue());
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private void negotiate(SimpMessageHeaderAccessor connect) {
+        PayloadEncoding encoding = PayloadEncoding.fromHeader(connect.getFirstNativeHeader(ENCODING_HEADER));
+        if (encoding.isBinary()) {
+            Map<String, Object> attributes = connect.getSessionAttributes();
+            if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_FRAMES))) {
+                encoding = PayloadEncoding.JSON_COMPACT; // SockJS transports are text-only
+            }
+        }
+        if (encoding != PayloadEncoding.JSON && connect.getSessionId() != null) {
+            sessions.put(connect.getSessionId(), encoding);
+        }
+    }
+
+    private byte[] encode(PayloadEncoding encoding, byte[] json) throws IOException {
+        Map<byte[], byte[]> cache = encoded.get(encoding);
+        byte[] payload = cache.get(json);
+        if (payload == null) {
+            payload = encoding.encode(json);
+            cache.put(json, payload);
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,96 @@
+package com.blud.broker;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Wire encodings a STOMP session can ask for with the {@code blud-encoding}
+ * CONNECT header. {@link #JSON} is what the message converter already produced;
+ * the others are re-encoded from it with a streaming copy that drops null
+ * fields. CBOR goes out as a binary WebSocket frame, which Spring only does for
+ * {@code application/octet-stream}, so the format is named in the
+ * {@code blud-encoding} header of each MESSAGE.
+ */
+public enum PayloadEncoding {
+
+    JSON("json", MimeTypeUtils.APPLICATION_JSON, null),
+    JSON_COMPACT("json-compact", MimeTypeUtils.APPLICATION_JSON, new JsonFactory()),
+    CBOR("cbor", MimeTypeUtils.APPLICATION_OCTET_STREAM, new CBORFactory());
+
+    private static final JsonFactory SOURCE = new JsonFactory();
+
+    private final String headerValue;
+    private final MimeType contentType;
+    private final JsonFactory target;
+
+    PayloadEncoding(String headerValue, MimeType contentType, JsonFactory target) {
+        this.headerValue = headerValue;
+        this.contentType = contentType;
+        this.target = target;
+    }
+
+    public String getHeaderValue() {
+        return headerValue;
+    }
+
+    public MimeType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Reads and writes payloads in this encoding.
+     */
+    public JsonFactory getFactory() {
+        return target != null ? target : SOURCE;
+    }
+
+    public boolean isBinary() {
+        return this == CBOR;
+    }
+
+    /**
+     * Unknown or missing values mean plain JSON.
+     */
+    public static PayloadEncoding fromHeader(String value) {
+        if (value != null) {
+            for (PayloadEncoding encoding : values()) {
+                if (encoding.headerValue.equalsIgnoreCase(value.trim())) {
+                    return encoding;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Re-encodes a JSON payload, skipping null-valued fields.
+     */
+    public byte[] encode(byte[] json) throws IOException {
+        if (target == null) {
+            return json;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = SOURCE.createParser(json); JsonGenerator generator = target.createGenerator(out)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    generator.writeFieldName(name);
+                }
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,490 @@
+package com.blud.broker;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded per-session outbound queues. Installed last on the client outbound
+ * channel, it takes every MESSAGE frame off the shared outbound executor queue
+ * and into the target session's own queue, which one task at a time drains into
+ * the WebSocket handler. A stalled client therefore only backs up its own
+ * queue, and what that queue may hold depends on the destination:
+ * <ul>
+ * <li>conflate: a pending message for the same destination is replaced by the
+ * newer one (radio events are full state);</li>
+ * <li>merge: once the queue is full, the message is folded into the newest
+ * pending one for the same subscription by the destination's
+ * {@link MessageMerger} (heatmap deltas are partial state, so none may be
+ * lost);</li>
+ * <li>drop-oldest: once the queue is full, the oldest pending message for the
+ * destination is dropped (for destinations whose messages may be lost; none by
+ * default);</li>
+ * <li>anything else is ordered and never dropped; a session that overflows
+ * the queue with such messages, or with merge messages that have nothing to
+ * merge into, is disconnected.</li>
+ * </ul>
+ * A session whose current send has been blocked longer than the send-time limit
+ * is disconnected as well. Other frame types (CONNECTED, heartbeats, errors)
+ * pass straight through.
+ * <p>
+ * Each drain pass takes everything queued for the session and writes it as a
+ * single WebSocket message: STOMP frames are NUL-terminated, so the client
+ * splits them again, and a burst of fan-out costs one socket write per session
+ * rather than one per message.
+ */
+@Component
+public class SessionBackpressure implements ChannelInterceptor {
+
+    private final BeanFactory beanFactory;
+    private final int queueLimit;
+    private final long sendTimeLimitMillis;
+    private final List<String> conflatePrefixes;
+    private final List<String> dropOldestPrefixes;
+    private final List<MessageMerger> mergers;
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, BatchingSession> webSocketSessions = new ConcurrentHashMap<>();
+
+    private volatile MessageHandler webSocketHandler;
+    private volatile Executor executor;
+
+    public SessionBackpressure(
+            BeanFactory beanFactory,
+            @Value("${blud.backpressure.queue-limit:256}") int queueLimit,
+            @Value("${blud.backpressure.send-time-limit-ms:10000}") long sendTimeLimitMillis,
+            @Value("${blud.backpressure.conflate:/topic/radio}") List<String> conflatePrefixes,
+            @Value("${blud.backpressure.drop-oldest:}") List<String> dropOldestPrefixes,
+            List<MessageMerger> mergers) {
+        this.beanFactory = beanFactory;
+        this.queueLimit = Math.max(1, queueLimit);
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.conflatePrefixes = conflatePrefixes;
+        this.dropOldestPrefixes = dropOldestPrefixes;
+        this.mergers = mergers;
+    }
+
+    /**
+     * Wraps each WebSocket session so drain passes can batch their writes, and
+     * keeps a handle on it so slow ones can be closed.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BatchingSession batching = new BatchingSession(session);
+                webSocketSessions.put(session.getId(), batching);
+                // The STOMP handler keeps this session for all its writes; later callbacks are matched by id
+                super.afterConnectionEstablished(batching);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                webSocketSessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null) {
+            return message;
+        }
+        SessionQueue queue = queues.computeIfAbsent(sessionId, SessionQueue::new);
+        if (queue.offer(message, policyFor(SimpMessageHeaderAccessor.getDestination(headers)))) {
+            queue.schedule();
+        }
+        return null; // Delivered by the session's drain task
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        queues.remove(event.getSessionId());
+    }
+
+    /**
+     * Queue depth and drop/conflation counts for every connected session.
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SessionQueue queue : queues.values()) {
+            result.add(queue.stats());
+        }
+        return result;
+    }
+
+    public long getTotalDropped() {
+        long total = 0;
+        for (SessionQueue queue : queues.values()) {
+            total += queue.dropped;
+        }
+        return total;
+    }
+
+    public long getTotalConflated() {
+        long total = 0;
+        for (SessionQueue queue : queues.values()) {
+            total += queue.conflated;
+        }
+        return total;
+    }
+
+    private Policy policyFor(String destination) {
+        if (destination != null) {
+            for (String prefix : conflatePrefixes) {
+                if (destination.startsWith(prefix)) {
+                    return Policy.CONFLATE;
+                }
+            }
+            if (mergerFor(destination) != null) {
+                return Policy.MERGE;
+            }
+            for (String prefix : dropOldestPrefixes) {
+                if (!prefix.isEmpty() && destination.startsWith(prefix)) {
+                    return Policy.DROP_OLDEST;
+                }
+            }
+        }
+        return Policy.ORDERED;
+    }
+
+    private MessageMerger mergerFor(String destination) {
+        for (MessageMerger merger : mergers) {
+            if (merger.supports(destination)) {
+                return merger;
+            }
+        }
+        return null;
+    }
+
+    private MessageHandler webSocketHandler() {
+        MessageHandler handler = webSocketHandler;
+        if (handler == null) {
+            // Resolved late: the handler is created after the channels it listens on
+            handler = beanFactory.getBean("subProtocolWebSocketHandler", MessageHandler.class);
+            webSocketHandler = handler;
+        }
+        return handler;
+    }
+
+    private Executor executor() {
+        Executor current = executor;
+        if (current == null) {
+            current = beanFactory.getBean("clientOutboundChannelExecutor", Executor.class);
+            executor = current;
+        }
+        return current;
+    }
+
+    private void disconnect(String sessionId, String reason) {
+        queues.remove(sessionId);
+        BatchingSession session = webSocketSessions.remove(sessionId);
+        System.err.println("Disconnecting slow session " + sessionId + ": " + reason);
+        if (session != null) {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    private enum Policy {
+        ORDERED, CONFLATE, MERGE, DROP_OLDEST
+    }
+
+    private static final class Pending {
+        final String destination;
+        final Policy policy;
+        Message<?> message;
+
+        Pending(String destination, Policy policy, Message<?> message) {
+            this.destination = destination;
+            this.policy = policy;
+            this.message = message;
+        }
+    }
+
+    private final class SessionQueue {
+        final String sessionId;
+        final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long sendingSince; // 0 while idle
+        volatile long sent;
+        volatile long dropped;
+        volatile long conflated;
+
+        SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        /**
+         * Returns false if the session was disconnected instead.
+         */
+        boolean offer(Message<?> message, Policy policy) {
+            long since = sendingSince;
+            if (since != 0 && System.currentTimeMillis() - since > sendTimeLimitMillis) {
+                disconnect(sessionId, "send blocked for more than " + sendTimeLimitMillis + "ms");
+                return false;
+            }
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            synchronized (pending) {
+                if (policy == Policy.CONFLATE) {
+                    for (Pending p : pending) {
+                        if (p.policy == Policy.CONFLATE && p.destination.equals(destination)) {
+                            p.message = message; // Keeps its place in line
+                            conflated++;
+                            return true;
+                        }
+                    }
+                }
+                if (pending.size() >= queueLimit) {
+                    if (policy == Policy.MERGE && mergeIntoPending(message, destination)) {
+                        return true;
+                    }
+                    if (!evictOldestLossy(destination)) {
+                        if (policy == Policy.ORDERED || policy == Policy.MERGE) {
+                            disconnect(sessionId, pending.size() + " undroppable messages pending");
+                            return false;
+                        }
+                        dropped++; // Only undroppable messages pending; drop the incoming one
+                        return true;
+                    }
+                }
+                pending.add(new Pending(destination, policy, message));
+            }
+            return true;
+        }
+
+        /**
+         * Folds the message into the newest pending one for the same subscription,
+         * which keeps its place in line; nothing for that subscription is queued
+         * after it, so the merged message still arrives in order.
+         */
+        private boolean mergeIntoPending(Message<?> message, String destination) {
+            String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+            Iterator<Pending> it = pending.descendingIterator();
+            while (it.hasNext()) {
+                Pending p = it.next();
+                if (p.policy == Policy.MERGE && p.destination.equals(destination) && Objects.equals(subscriptionId,
+                        SimpMessageHeaderAccessor.getSubscriptionId(p.message.getHeaders()))) {
+                    Message<?> merged = mergerFor(destination).merge(p.message, message);
+                    if (merged == null) {
+                        return false;
+                    }
+                    p.message = merged;
+                    conflated++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Makes room in a full queue by dropping the oldest lossy message, preferring
+         * the incoming destination, then drop-oldest destinations; a conflated
+         * message is the only copy of its state and goes last. Merge messages are
+         * never dropped.
+         */
+        private boolean evictOldestLossy(String destination) {
+            Iterator<Pending> it = pending.iterator();
+            Pending fallback = null;
+            while (it.hasNext()) {
+                Pending p = it.next();
+                if (p.policy == Policy.ORDERED || p.policy == Policy.MERGE) {
+                    continue;
+                }
+                if (p.destination.equals(destination)) {
+                    it.remove();
+                    dropped++;
+                    return true;
+                }
+                if (fallback == null || (fallback.policy == Policy.CONFLATE && p.policy == Policy.DROP_OLDEST)) {
+                    fallback = p;
+                }
+            }
+            if (fallback != null) {
+                pending.remove(fallback);
+                dropped++;
+                return true;
+            }
+            return false;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor().execute(this::drain);
+            }
+        }
+
+        void drain() {
+            List<Message<?>> batch = new ArrayList<>();
+            while (true) {
+                synchronized (pending) {
+                    for (Pending p = pending.poll(); p != null; p = pending.poll()) {
+                        batch.add(p.message);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    scheduled.set(false);
+                    synchronized (pending) {
+                        if (pending.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                BatchingSession session = webSocketSessions.get(sessionId);
+                sendingSince = System.currentTimeMillis();
+                if (session != null) {
+                    session.startBatch();
+                }
+                try {
+                    for (Message<?> next : batch) {
+                        try {
+                            webSocketHandler().handleMessage(next);
+                            sent++;
+                        } catch (RuntimeException e) {
+                            // The handler closes sessions whose transport failed
+                        }
+                    }
+                } finally {
+                    if (session != null) {
+                        session.flushBatch();
+                    }
+                    sendingSince = 0;
+                    batch.clear();
+                }
+            }
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("sessionId", sessionId);
+            synchronized (pending) {
+                stats.put("queued", pending.size());
+            }
+            stats.put("sent", sent);
+            stats.put("dropped", dropped);
+            stats.put("conflated", conflated);
+            return stats;
+        }
+    }
+
+    /**
+     * Between {@link #startBatch()} and {@link #flushBatch()} collects the frames
+     * written to the session and sends runs of the same message type as one
+     * message, up to {@link #MAX_BATCH_BYTES}. Every write to the session goes
+     * through this monitor, so frames other threads send meanwhile (heartbeats,
+     * receipts) join the batch in order instead of overtaking it.
+     */
+    private static final class BatchingSession extends WebSocketSessionDecorator {
+
+        private static final int MAX_BATCH_BYTES = 64 * 1024;
+
+        private final List<WebSocketMessage<?>> batch = new ArrayList<>();
+        private int batchBytes;
+        private boolean batching;
+
+        BatchingSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        synchronized void startBatch() {
+            batching = true;
+        }
+
+        synchronized void flushBatch() {
+            batching = false;
+            try {
+                writeBatch();
+            } catch (IOException e) {
+                try {
+                    close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // Already gone
+                }
+            }
+        }
+
+        @Override
+        public synchronized void sendMessage(WebSocketMessage<?> message) throws IOException {
+            boolean batchable = message instanceof TextMessage || message instanceof BinaryMessage;
+            if (!batching || !batchable) {
+                writeBatch();
+                super.sendMessage(message);
+                return;
+            }
+            if (!batch.isEmpty() && batch.get(0).getClass() != message.getClass()) {
+                writeBatch();
+            }
+            batch.add(message);
+            batchBytes += message.getPayloadLength();
+            if (batchBytes >= MAX_BATCH_BYTES) {
+                writeBatch();
+            }
+        }
+
+        private void writeBatch() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                if (batch.size() == 1) {
+                    super.sendMessage(batch.get(0));
+                } else if (batch.get(0) instanceof TextMessage) {
+                    StringBuilder frames = new StringBuilder(batchBytes);
+                    for (WebSocketMessage<?> message : batch) {
+                        frames.append(((TextMessage) message).getPayload());
+                    }
+                    super.sendMessage(new TextMessage(frames));
+                } else {
+                    ByteBuffer frames = ByteBuffer.allocate(batchBytes);
+                    for (WebSocketMessage<?> message : batch) {
+                        frames.put(((BinaryMessage) message).getPayload().duplicate());
+                    }
+                    frames.flip();
+                    super.sendMessage(new BinaryMessage(frames));
+                }
+            } finally {
+                batch.clear();
+                batchBytes = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.blud.broker;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends a JSON payload to a single subscription of a single session, bypassing
+ * the broker. Used for snapshots and replays on subscribe.
+ */
+public final class SessionDelivery {
+
+    private SessionDelivery() {
+    }
+
+    public static void sendToSubscription(MessageChannel clientOutboundChannel, String sessionId,
+            String subscriptionId, String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+}
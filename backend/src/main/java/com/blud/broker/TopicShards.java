@@ -0,0 +1,138 @@
+package com.blud.broker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription index for sharded topics such as "/topic/feed/{dorm}" under a
+ * registered parent "/topic/feed". Counts this node's subscribers per shard
+ * from the session subscribe, unsubscribe and disconnect events, so a parent's
+ * interceptor can derive copies for subscribed shards only and the broker fans
+ * each copy out to that shard's sessions alone. Derived messages carry a
+ * shard header and stay on this node: every node derives its own shards from
+ * the parent topic, which the cluster relay already copies.
+ */
+@Component
+public class TopicShards {
+
+    public static final String SHARD_OF_HEADER = "bludShardOf";
+
+    // parent -> shard destination -> local subscriptions
+    private final Map<String, Map<String, Integer>> shards = new ConcurrentHashMap<>();
+    // session -> subscription id -> shard destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    @Lazy
+    @Qualifier("brokerChannel")
+    private MessageChannel brokerChannel;
+
+    /**
+     * Starts indexing "{parent}/{shard}" subscriptions.
+     */
+    public void register(String parent) {
+        shards.computeIfAbsent(parent, p -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Shard destinations under {@code parent} with at least one subscriber here.
+     */
+    public Set<String> subscribed(String parent) {
+        Map<String, Integer> counts = shards.get(parent);
+        return counts == null ? Collections.emptySet() : Collections.unmodifiableSet(counts.keySet());
+    }
+
+    /**
+     * Publishes a copy of a parent-topic payload to one of its shards.
+     */
+    public void publish(String parent, String destination, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        accessor.setHeader(SHARD_OF_HEADER, parent);
+        brokerChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = subscribe.getDestination();
+        String sessionId = subscribe.getSessionId();
+        String subscriptionId = subscribe.getSubscriptionId();
+        if (destination == null || sessionId == null || subscriptionId == null || parentOf(destination) == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            adjust(previous, -1); // Subscription id reused without an UNSUBSCRIBE
+        }
+        adjust(destination, 1);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor unsubscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(unsubscribe.getSessionId());
+        String subscriptionId = unsubscribe.getSubscriptionId();
+        if (subscriptions == null || subscriptionId == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            adjust(destination, -1);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // Disconnect may be reported more than once per session; the remove makes it idempotent
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            for (String destination : subscriptions.values()) {
+                adjust(destination, -1);
+            }
+        }
+    }
+
+    private void adjust(String destination, int delta) {
+        String parent = parentOf(destination);
+        Map<String, Integer> counts = parent != null ? shards.get(parent) : null;
+        if (counts != null) {
+            counts.compute(destination, (d, n) -> {
+                int count = (n == null ? 0 : n) + delta;
+                return count > 0 ? count : null;
+            });
+        }
+    }
+
+    /**
+     * The registered parent of a single-segment shard destination, or null.
+     */
+    private String parentOf(String destination) {
+        int slash = destination.lastIndexOf('/');
+        if (slash <= 0 || slash == destination.length() - 1) {
+            return null;
+        }
+        String parent = destination.substring(0, slash);
+        return shards.containsKey(parent) ? parent : null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.blud.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Falls back to the in-memory transport unless another {@link ClusterTransport}
+ * bean is defined. Registered as auto-configuration (and so kept out of component
+ * scanning) so the condition is evaluated after every user-defined bean.
+ * <p>
+ * The in-memory transport only connects nodes inside one JVM; separate instances
+ * would each win their own lease and all run the generators. Cluster mode
+ * therefore refuses to start on it unless {@code blud.cluster.allow-in-memory}
+ * is set, for single-JVM runs.
+ */
+@AutoConfiguration
+public class ClusterAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(ClusterTransport.class)
+    public ClusterTransport clusterTransport(
+            @Value("${blud.cluster.name:blud}") String clusterName,
+            @Value("${blud.cluster.enabled:false}") boolean enabled,
+            @Value("${blud.cluster.allow-in-memory:false}") boolean allowInMemory) {
+        if (enabled && !allowInMemory) {
+            throw new IllegalStateException("blud.cluster.enabled needs a shared ClusterTransport bean: "
+                    + "the in-memory fallback only reaches nodes in this JVM, so every instance would lead "
+                    + "(set blud.cluster.allow-in-memory=true for single-JVM runs)");
+        }
+        if (enabled) {
+            System.err.println("Cluster mode is running on the in-memory transport: leadership and relaying "
+                    + "only span this JVM");
+        }
+        return new InMemoryClusterTransport(clusterName);
+    }
+}
@@ -0,0 +1,95 @@
+package com.blud.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether this node runs the scheduled generator engines. With
+ * clustering disabled every node is its own leader (the single-node default);
+ * with it enabled a lease on the {@link ClusterTransport} is acquired and renewed
+ * at a third of its duration, so a dead leader is replaced within one lease.
+ */
+@Component
+public class ClusterCoordinator {
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final Duration lease;
+    private final ClusterTransport transport;
+    private ScheduledExecutorService renewer;
+    private volatile boolean leader;
+
+    public ClusterCoordinator(
+            @Value("${blud.cluster.enabled:false}") boolean enabled,
+            @Value("${blud.cluster.node-id:}") String nodeId,
+            @Value("${blud.cluster.lease-ms:10000}") long leaseMillis,
+            ClusterTransport transport) {
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.transport = transport;
+        this.leader = !enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-lease");
+            t.setDaemon(true);
+            return t;
+        });
+        renewLease();
+        long period = Math.max(1, lease.toMillis() / 3);
+        renewer.scheduleAtFixedRate(this::renewLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+            if (leader) {
+                transport.releaseLeadership(nodeId);
+            }
+        }
+    }
+
+    /**
+     * True if this node should run the {@code @Scheduled} generators.
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void renewLease() {
+        boolean acquired;
+        try {
+            acquired = transport.tryAcquireLeadership(nodeId, lease);
+        } catch (RuntimeException e) {
+            System.err.println("Cluster lease renewal failed: " + e.getMessage());
+            acquired = false;
+        }
+        if (acquired != leader) {
+            System.out.println("Cluster node " + nodeId + (acquired ? " became leader" : " lost leadership"));
+        }
+        leader = acquired;
+    }
+}
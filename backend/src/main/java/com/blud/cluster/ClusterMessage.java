@@ -0,0 +1,35 @@
+package com.blud.cluster;
+
+/**
+ * A broker message as it travels between nodes: destination plus the
+ * already-serialized payload.
+ */
+public class ClusterMessage {
+    private final String originNodeId;
+    private final String destination;
+    private final String contentType;
+    private final byte[] payload;
+
+    public ClusterMessage(String originNodeId, String destination, String contentType, byte[] payload) {
+        this.originNodeId = originNodeId;
+        this.destination = destination;
+        this.contentType = contentType;
+        this.payload = payload;
+    }
+
+    public String getOriginNodeId() {
+        return originNodeId;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
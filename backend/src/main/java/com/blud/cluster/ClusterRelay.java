@@ -0,0 +1,95 @@
+package com.blud.cluster;
+
+import com.blud.broker.TopicShards;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Broker-channel interceptor that copies every server-originated "/topic"
+ * message, and every node-to-node message under {@link #INTERNAL_PREFIX}, to
+ * the other nodes, and injects messages received from them into the
+ * local broker so each node's own subscribers get them. Relayed messages carry
+ * an origin header and are never sent out again; neither are shard copies,
+ * which each node derives from the relayed parent topic.
+ */
+@Component
+public class ClusterRelay implements ChannelInterceptor {
+
+    static final String ORIGIN_HEADER = "bludClusterOrigin";
+
+    /**
+     * Destinations for node-to-node messages. No broker owns the prefix, so they
+     * only reach broker-channel interceptors and never a client.
+     */
+    public static final String INTERNAL_PREFIX = "/cluster/";
+
+    private final ClusterCoordinator coordinator;
+    private final ClusterTransport transport;
+
+    @Autowired
+    @Lazy
+    @Qualifier("brokerChannel")
+    private MessageChannel brokerChannel;
+
+    public ClusterRelay(ClusterCoordinator coordinator, ClusterTransport transport) {
+        this.coordinator = coordinator;
+        this.transport = transport;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (coordinator.isEnabled()) {
+            transport.subscribe(coordinator.getNodeId(), this::deliverLocally);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (coordinator.isEnabled()) {
+            transport.unsubscribe(coordinator.getNodeId());
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!coordinator.isEnabled() || message.getHeaders().containsKey(ORIGIN_HEADER)
+                || message.getHeaders().containsKey(TopicShards.SHARD_OF_HEADER)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE && destination != null
+                && (destination.startsWith("/topic") || destination.startsWith(INTERNAL_PREFIX))
+                && message.getPayload() instanceof byte[] payload) {
+            MimeType contentType = accessor.getContentType();
+            try {
+                transport.publish(new ClusterMessage(coordinator.getNodeId(), destination,
+                        contentType != null ? contentType.toString() : null, payload));
+            } catch (RuntimeException e) {
+                System.err.println("Cluster relay publish failed: " + e.getMessage());
+            }
+        }
+        return message;
+    }
+
+    private void deliverLocally(ClusterMessage clusterMessage) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(clusterMessage.getDestination());
+        if (clusterMessage.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(clusterMessage.getContentType()));
+        }
+        accessor.setHeader(ORIGIN_HEADER, clusterMessage.getOriginNodeId());
+        brokerChannel.send(MessageBuilder.createMessage(clusterMessage.getPayload(), accessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.blud.cluster;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Connects backend nodes: relays broker messages to every other node and
+ * arbitrates a single leadership lease. Implementations must not deliver a
+ * node's own messages back to it.
+ */
+public interface ClusterTransport {
+
+    void publish(ClusterMessage message);
+
+    void subscribe(String nodeId, Consumer<ClusterMessage> listener);
+
+    void unsubscribe(String nodeId);
+
+    /**
+     * Acquires the lease if it is free or expired, or renews it if already held by
+     * this node. Returns whether the node holds the lease afterwards.
+     */
+    boolean tryAcquireLeadership(String nodeId, Duration lease);
+
+    void releaseLeadership(String nodeId);
+}
@@ -0,0 +1,69 @@
+package com.blud.cluster;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Loopback transport for nodes sharing one JVM (tests, local multi-context
+ * runs). Nodes constructed with the same cluster name share one bus and lease.
+ */
+public class InMemoryClusterTransport implements ClusterTransport {
+
+    private static final Map<String, Bus> BUSES = new ConcurrentHashMap<>();
+
+    private final Bus bus;
+
+    public InMemoryClusterTransport(String clusterName) {
+        this.bus = BUSES.computeIfAbsent(clusterName, name -> new Bus());
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        bus.listeners.forEach((nodeId, listener) -> {
+            if (!nodeId.equals(message.getOriginNodeId())) {
+                listener.accept(message);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(String nodeId, Consumer<ClusterMessage> listener) {
+        bus.listeners.put(nodeId, listener);
+    }
+
+    @Override
+    public void unsubscribe(String nodeId) {
+        bus.listeners.remove(nodeId);
+    }
+
+    @Override
+    public boolean tryAcquireLeadership(String nodeId, Duration lease) {
+        synchronized (bus) {
+            long now = System.currentTimeMillis();
+            if (bus.leaderId == null || bus.leaderId.equals(nodeId) || now >= bus.leaseExpiresAt) {
+                bus.leaderId = nodeId;
+                bus.leaseExpiresAt = now + lease.toMillis();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void releaseLeadership(String nodeId) {
+        synchronized (bus) {
+            if (nodeId.equals(bus.leaderId)) {
+                bus.leaderId = null;
+                bus.leaseExpiresAt = 0;
+            }
+        }
+    }
+
+    private static final class Bus {
+        final Map<String, Consumer<ClusterMessage>> listeners = new ConcurrentHashMap<>();
+        String leaderId;
+        long leaseExpiresAt;
+    }
+}
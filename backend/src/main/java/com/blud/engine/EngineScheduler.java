@@ -0,0 +1,204 @@
+package com.blud.engine;
+
+import com.blud.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each engine's periodic work on its own thread, so a slow tick (an AI
+ * call, a database hiccup) in one engine never delays another, as it did when
+ * every {@code @Scheduled} method shared one scheduler thread.
+ * <p>
+ * Ticks are due on a fixed grid ({@code start + n * period}). Each tick records
+ * how late it started against its slot; when a tick ends after later slots have
+ * already passed, the engine's {@link TickPolicy} decides which of them still
+ * run. Lag, duration, dropped ticks and failures are exported per engine on
+ * {@code /api/metrics}, and {@code GET /api/engines} shows the current state.
+ * Engines register in {@code @PostConstruct}; ticking starts once the context
+ * is refreshed, like {@code @Scheduled}.
+ */
+@Component
+public class EngineScheduler implements SmartLifecycle {
+
+    private static final long BEHIND_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final int maxCatchUp;
+    private final List<Engine> engines = new ArrayList<>();
+    private final MetricsRegistry.Histogram tickSeconds;
+    private final MetricsRegistry.Histogram lagSeconds;
+    private final MetricsRegistry.Counter droppedTicks;
+    private final MetricsRegistry.Counter failedTicks;
+    private volatile boolean running;
+
+    public EngineScheduler(MetricsRegistry metrics, @Value("${blud.engines.max-catch-up:10}") int maxCatchUp) {
+        this.maxCatchUp = Math.max(1, maxCatchUp);
+        this.tickSeconds = metrics.histogram("blud_engine_tick_seconds", "Duration of engine ticks",
+                MetricsRegistry.LATENCY_BUCKETS, "engine");
+        this.lagSeconds = metrics.histogram("blud_engine_tick_lag_seconds",
+                "How late engine ticks started against their scheduled slot", MetricsRegistry.LATENCY_BUCKETS,
+                "engine");
+        this.droppedTicks = metrics.counter("blud_engine_ticks_dropped_total",
+                "Scheduled engine ticks dropped by the engine's policy after it fell behind", "engine");
+        this.failedTicks = metrics.counter("blud_engine_tick_errors_total", "Engine ticks that threw", "engine");
+    }
+
+    /**
+     * Registers {@code tick} to run every {@code periodMillis} on a dedicated
+     * "engine-{name}" thread.
+     */
+    public synchronized void schedule(String name, long periodMillis, TickPolicy policy, Runnable tick) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Engine " + name + " needs a positive period, got " + periodMillis);
+        }
+        Engine engine = new Engine(name, TimeUnit.MILLISECONDS.toNanos(periodMillis), policy, tick);
+        engines.add(engine);
+        if (running) {
+            engine.start();
+        }
+    }
+
+    public synchronized List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>(engines.size());
+        for (Engine engine : engines) {
+            result.add(engine.snapshot());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        for (Engine engine : engines) {
+            engine.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        for (Engine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private final class Engine implements Runnable {
+        final String name;
+        final long periodNanos;
+        final TickPolicy policy;
+        final Runnable tick;
+        ScheduledExecutorService executor;
+
+        // Written by the engine thread only; read by snapshot()
+        volatile long slot; // nanoTime the next tick is due
+        volatile long ticks;
+        volatile long dropped;
+        volatile long lastLagNanos;
+        volatile long maxLagNanos;
+        volatile long lastTickNanos;
+        long lastBehindLog;
+
+        Engine(String name, long periodNanos, TickPolicy policy, Runnable tick) {
+            this.name = name;
+            this.periodNanos = periodNanos;
+            this.policy = policy;
+            this.tick = tick;
+        }
+
+        void start() {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "engine-" + name);
+                t.setDaemon(true);
+                return t;
+            });
+            slot = System.nanoTime();
+            executor.execute(this);
+        }
+
+        void stop() {
+            executor.shutdownNow();
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            long lag = Math.max(0, start - slot);
+            lagSeconds.observeNanos(lag, name);
+            lastLagNanos = lag;
+            maxLagNanos = Math.max(maxLagNanos, lag);
+
+            Error fatal = null;
+            try {
+                tick.run();
+            } catch (RuntimeException e) {
+                failedTicks.increment(name);
+                System.err.println("Engine " + name + " tick failed: " + e.getMessage());
+            } catch (Error e) {
+                // Rethrown once the next tick is scheduled, so the engine keeps running
+                failedTicks.increment(name);
+                System.err.println("Engine " + name + " tick failed: " + e);
+                fatal = e;
+            }
+
+            long end = System.nanoTime();
+            lastTickNanos = end - start;
+            tickSeconds.observeNanos(lastTickNanos, name);
+            ticks++;
+
+            long next = slot + periodNanos;
+            if (end > next) {
+                // Slots next, next + period, ... up to now are all due already
+                long overdue = (end - next) / periodNanos + 1;
+                long drop = policy.dropped(overdue, maxCatchUp);
+                if (drop > 0) {
+                    next += drop * periodNanos;
+                    dropped += drop;
+                    droppedTicks.add(drop, name);
+                }
+                if (end - lastBehindLog > BEHIND_LOG_INTERVAL_NANOS) {
+                    lastBehindLog = end;
+                    System.err.println("Engine " + name + " is " + overdue + " tick(s) behind (last tick "
+                            + lastTickNanos / 1_000_000 + "ms, period " + periodNanos / 1_000_000 + "ms, policy "
+                            + policy + ", dropped " + drop + ")");
+                }
+            }
+            slot = next;
+
+            try {
+                executor.schedule(this, Math.max(0, next - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+            if (fatal != null) {
+                throw fatal;
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("engine", name);
+            status.put("periodMs", periodNanos / 1_000_000);
+            status.put("policy", policy.name().toLowerCase().replace('_', '-'));
+            status.put("ticks", ticks);
+            status.put("dropped", dropped);
+            status.put("lastTickMs", lastTickNanos / 1_000_000.0);
+            status.put("lastLagMs", lastLagNanos / 1_000_000.0);
+            status.put("maxLagMs", maxLagNanos / 1_000_000.0);
+            return status;
+        }
+    }
+}
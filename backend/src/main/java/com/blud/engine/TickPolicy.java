@@ -0,0 +1,44 @@
+package com.blud.engine;
+
+/**
+ * What an engine does with ticks whose scheduled time passed while an earlier
+ * tick was still running (or the engine thread was starved).
+ */
+public enum TickPolicy {
+
+    /** Drop every missed tick and wait for the next slot on the schedule. */
+    SKIP {
+        @Override
+        long dropped(long overdue, int maxCatchUp) {
+            return overdue;
+        }
+    },
+
+    /** Run one tick right away in place of all missed ones, then resume the schedule. */
+    COALESCE {
+        @Override
+        long dropped(long overdue, int maxCatchUp) {
+            return overdue - 1;
+        }
+    },
+
+    /** Run every missed tick back to back, up to {@code maxCatchUp}; older ones are dropped. */
+    CATCH_UP {
+        @Override
+        long dropped(long overdue, int maxCatchUp) {
+            return Math.max(0, overdue - maxCatchUp);
+        }
+    };
+
+    /**
+     * How many of the {@code overdue} (already due, not yet run) slots to drop.
+     */
+    abstract long dropped(long overdue, int maxCatchUp);
+
+    /**
+     * Parses "skip", "coalesce" or "catch-up" (case-insensitive).
+     */
+    public static TickPolicy fromString(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
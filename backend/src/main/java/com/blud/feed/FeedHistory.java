@@ -0,0 +1,210 @@
+package com.blud.feed;
+
+import com.blud.broker.SessionDelivery;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent "/topic/feed" posts so clients are not greeted by an
+ * empty feed. Installed as a broker-channel interceptor, it records every final
+ * post (local or relayed from another node) as the serialized JSON already on
+ * the wire, replays the newest ones to each new "/topic/feed" subscriber, and
+ * backs {@code GET /api/feed} pagination. Dorm shard subscribers (see
+ * {@link FeedShards}) get only the posts that shard carries. Posts are also
+ * appended to a memory-mapped segment log that is replayed on startup.
+ */
+@Component
+public class FeedHistory implements ChannelInterceptor {
+
+    private static final String FEED = FeedShards.FEED;
+
+    private final ObjectMapper objectMapper;
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int replayCount;
+    private final FeedSegmentLog log;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    public FeedHistory(
+            ObjectMapper objectMapper,
+            @Value("${blud.feed.history-size:256}") int historySize,
+            @Value("${blud.feed.replay-count:20}") int replayCount,
+            @Value("${blud.feed.log-dir:data/feed}") String logDir,
+            @Value("${blud.feed.segment-bytes:4194304}") int segmentBytes,
+            @Value("${blud.feed.max-segments:8}") int maxSegments) {
+        this.objectMapper = objectMapper;
+        int capacity = Integer.highestOneBit(Math.max(2, historySize - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.replayCount = Math.min(replayCount, capacity);
+        this.log = logDir == null || logDir.isBlank() ? null
+                : new FeedSegmentLog(Paths.get(logDir), segmentBytes, maxSegments);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.open((postId, json) -> remember(postId, shardOf(json), json));
+            System.out.println("Feed history warm start: " + Math.min(sequence.get(), ring.length()) + " posts");
+        } catch (IOException e) {
+            System.err.println("Feed log unavailable, history is memory-only: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE && FEED.equals(accessor.getDestination())
+                && message.getPayload() instanceof byte[] json) {
+            record(json);
+        }
+        return message;
+    }
+
+    /**
+     * Replays recent posts, oldest first, to the subscribing session only.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = subscribe.getDestination();
+        if (destination == null || !(destination.equals(FEED) || destination.startsWith(FEED + "/"))) {
+            return;
+        }
+        String shard = destination.equals(FEED) ? null : destination;
+        List<Entry> recent = newest(Long.MAX_VALUE, replayCount, shard);
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            SessionDelivery.sendToSubscription(clientOutboundChannel, subscribe.getSessionId(),
+                    subscribe.getSubscriptionId(), destination, recent.get(i).json);
+        }
+    }
+
+    /**
+     * Posts with an id below {@code before}, newest first, as a JSON array. With
+     * a dorm, only the posts its shard carries.
+     */
+    public String page(long before, int limit, String dorm) {
+        List<Entry> entries = newest(before, limit, dorm != null ? FeedShards.destinationFor(dorm) : null);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(new String(entries.get(i).json, StandardCharsets.UTF_8));
+        }
+        return json.append(']').toString();
+    }
+
+    private void record(byte[] json) {
+        long postId;
+        String dorm;
+        try {
+            JsonNode post = objectMapper.readTree(json);
+            if ("typing".equals(post.path("type").asText())) {
+                return; // Streaming partials are superseded by their final post
+            }
+            postId = post.path("id").asLong();
+            dorm = post.path("dorm").textValue();
+        } catch (IOException e) {
+            return;
+        }
+
+        remember(postId, dorm != null ? FeedShards.destinationFor(dorm) : null, json);
+        if (log != null) {
+            try {
+                log.append(postId, json);
+            } catch (IOException e) {
+                System.err.println("Failed to append feed log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void remember(long postId, String shard, byte[] json) {
+        long seq = sequence.getAndIncrement();
+        ring.set((int) (seq & mask), new Entry(seq, postId, shard, json));
+    }
+
+    private String shardOf(byte[] json) {
+        try {
+            String dorm = objectMapper.readTree(json).path("dorm").textValue();
+            return dorm != null ? FeedShards.destinationFor(dorm) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lock-free read: walks back from the newest slot, skipping slots still being
+     * written and stopping at the first one already overwritten. A shard keeps
+     * its own posts and campus-wide ones.
+     */
+    private List<Entry> newest(long beforeId, int limit, String shard) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, ring.length()));
+        long head = sequence.get();
+        long oldest = Math.max(0, head - ring.length());
+        for (long seq = head - 1; seq >= oldest && result.size() < limit; seq--) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry == null || entry.seq < seq) {
+                continue; // Claimed by a writer that has not stored it yet
+            }
+            if (entry.seq > seq) {
+                break; // Lapped by newer writes
+            }
+            if (entry.postId < beforeId && (shard == null || entry.shard == null || shard.equals(entry.shard))) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private static final class Entry {
+        final long seq;
+        final long postId;
+        final String shard; // Null for campus-wide posts
+        final byte[] json;
+
+        Entry(long seq, long postId, String shard, byte[] json) {
+            this.seq = seq;
+            this.postId = postId;
+            this.shard = shard;
+            this.json = json;
+        }
+    }
+}
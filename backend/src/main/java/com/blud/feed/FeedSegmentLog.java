@@ -0,0 +1,135 @@
+package com.blud.feed;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only log of feed posts in fixed-size memory-mapped segment files
+ * ({@code feed-<n>.seg}). A record is {@code [int length][long postId][json]};
+ * the length is written last so a torn record reads as the end of the segment.
+ * Only the newest {@code maxSegments} files are kept.
+ */
+class FeedSegmentLog implements AutoCloseable {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final List<Path> segments = new ArrayList<>();
+    private MappedByteBuffer current;
+    private int position;
+
+    FeedSegmentLog(Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+    }
+
+    /**
+     * Opens the log, replaying every stored record oldest first, and positions the
+     * writer after the last record of the newest segment.
+     */
+    synchronized void open(BiConsumer<Long, byte[]> replay) throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "feed-*.seg")) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+
+        for (Path segment : segments) {
+            MappedByteBuffer buffer = map(segment);
+            int end = scan(buffer, replay);
+            if (segment == segments.get(segments.size() - 1)) {
+                current = buffer;
+                position = end;
+            }
+        }
+        if (current == null) {
+            roll();
+        }
+    }
+
+    synchronized void append(long postId, byte[] json) throws IOException {
+        int recordBytes = HEADER_BYTES + json.length;
+        if (recordBytes > segmentBytes - Integer.BYTES) {
+            return; // Larger than a segment; never happens for feed posts
+        }
+        // Keep room for a zero length terminator after the record
+        if (position + recordBytes + Integer.BYTES > segmentBytes) {
+            roll();
+        }
+        current.putLong(position + Integer.BYTES, postId);
+        current.put(position + HEADER_BYTES, json);
+        current.putInt(position, json.length);
+        position += recordBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (current != null) {
+            current.force();
+            current = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.force();
+        }
+        long next = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        Path segment = directory.resolve("feed-" + next + ".seg");
+        segments.add(segment);
+        current = map(segment);
+        position = 0;
+
+        while (segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.remove(0));
+        }
+    }
+
+    private MappedByteBuffer map(Path segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            if (file.length() < segmentBytes) {
+                file.setLength(segmentBytes);
+            }
+            // The mapping stays valid after the channel is closed
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private int scan(MappedByteBuffer buffer, BiConsumer<Long, byte[]> replay) {
+        int pos = 0;
+        while (pos + HEADER_BYTES <= segmentBytes) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            long postId = buffer.getLong(pos + Integer.BYTES);
+            byte[] json = new byte[length];
+            buffer.get(pos + HEADER_BYTES, json);
+            replay.accept(postId, json);
+            pos += HEADER_BYTES + length;
+        }
+        return pos;
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("feed-".length(), name.length() - ".seg".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
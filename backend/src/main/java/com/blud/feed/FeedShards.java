@@ -0,0 +1,72 @@
+package com.blud.feed;
+
+import com.blud.broker.TopicShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Per-dorm feed shards "/topic/feed/{dorm}", with the dorm as a lowercase slug
+ * ("North Hall" becomes "north-hall"). A shard carries the dorm's own posts
+ * plus every campus-wide post (no {@code dorm}), so a shard subscriber sees the
+ * same feed as a "/topic/feed" subscriber minus the other dorms. Installed as
+ * a broker-channel interceptor; posts are only parsed while some shard has a
+ * subscriber on this node.
+ */
+@Component
+public class FeedShards implements ChannelInterceptor {
+
+    public static final String FEED = "/topic/feed";
+
+    private final ObjectMapper objectMapper;
+    private final TopicShards topicShards;
+
+    public FeedShards(ObjectMapper objectMapper, TopicShards topicShards) {
+        this.objectMapper = objectMapper;
+        this.topicShards = topicShards;
+        topicShards.register(FEED);
+    }
+
+    public static String destinationFor(String dorm) {
+        return FEED + "/" + dorm.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || !FEED.equals(accessor.getDestination())
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        Set<String> subscribed = topicShards.subscribed(FEED);
+        if (subscribed.isEmpty()) {
+            return message;
+        }
+
+        String dorm;
+        try {
+            dorm = objectMapper.readTree(json).path("dorm").textValue();
+        } catch (IOException e) {
+            return message;
+        }
+        if (dorm != null) {
+            String destination = destinationFor(dorm);
+            if (subscribed.contains(destination)) {
+                topicShards.publish(FEED, destination, json, accessor.getContentType());
+            }
+        } else {
+            for (String destination : subscribed) {
+                topicShards.publish(FEED, destination, json, accessor.getContentType());
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,106 @@
+package com.blud.heatmap;
+
+import com.blud.broker.MessageMerger;
+import com.blud.broker.PayloadEncoder;
+import com.blud.broker.PayloadEncoding;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Merges heatmap frames that are still queued for a slow session: the union of
+ * their zones, each with its latest value, at the higher version. A delta is
+ * only part of the state, so dropping one would leave the zones it alone
+ * carried stale on the client until it resubscribed. Merging into a snapshot
+ * keeps a snapshot; a newer full snapshot replaces whatever was pending.
+ */
+@Component
+public class HeatmapDeltaMerger implements MessageMerger {
+
+    private final ObjectMapper objectMapper;
+
+    public HeatmapDeltaMerger(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(String destination) {
+        return HeatmapModel.DESTINATION.equals(destination) || HeatmapShards.parseRange(destination) != null;
+    }
+
+    @Override
+    public Message<?> merge(Message<?> older, Message<?> newer) {
+        if (!(older.getPayload() instanceof byte[] olderPayload)
+                || !(newer.getPayload() instanceof byte[] newerPayload)) {
+            return null;
+        }
+        // Both were queued for the same session, so they share its encoding
+        PayloadEncoding encoding = PayloadEncoding.fromHeader(
+                SimpMessageHeaderAccessor.wrap(newer).getFirstNativeHeader(PayloadEncoder.ENCODING_HEADER));
+        try {
+            HeatmapFrame merged = merge(read(encoding, olderPayload), read(encoding, newerPayload));
+            if (merged == null) {
+                return null;
+            }
+            return MessageBuilder.createMessage(encoding.encode(objectMapper.writeValueAsBytes(merged)),
+                    newer.getHeaders());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static HeatmapFrame merge(HeatmapFrame older, HeatmapFrame newer) {
+        if (older.getActivity() == null || newer.getActivity() == null) {
+            return null;
+        }
+        if (newer.isSnapshot() && newer.getIds() == null) {
+            return newer;
+        }
+        double[] values = new double[HeatmapModel.ZONES];
+        long zones = collect(newer, values, collect(older, values, 0L));
+        long version = Math.max(older.getVersion(), newer.getVersion());
+        boolean snapshot = older.isSnapshot() || newer.isSnapshot();
+        if (older.isSnapshot() && older.getIds() == null) {
+            return new HeatmapFrame(version, true, null, values);
+        }
+
+        int[] ids = new int[Long.bitCount(zones)];
+        double[] activity = new double[ids.length];
+        int n = 0;
+        for (long remaining = zones; remaining != 0; remaining &= remaining - 1) {
+            int zone = Long.numberOfTrailingZeros(remaining);
+            ids[n] = zone;
+            activity[n++] = values[zone];
+        }
+        return new HeatmapFrame(version, snapshot, ids, activity);
+    }
+
+    /**
+     * Copies a frame's zones into {@code values}, returning {@code zones} with
+     * their bits set.
+     */
+    private static long collect(HeatmapFrame frame, double[] values, long zones) {
+        int[] ids = frame.getIds();
+        double[] activity = frame.getActivity();
+        int count = ids != null ? Math.min(ids.length, activity.length) : Math.min(activity.length, values.length);
+        for (int i = 0; i < count; i++) {
+            int zone = ids != null ? ids[i] : i;
+            if (zone >= 0 && zone < values.length) {
+                values[zone] = activity[i];
+                zones |= 1L << zone;
+            }
+        }
+        return zones;
+    }
+
+    private HeatmapFrame read(PayloadEncoding encoding, byte[] payload) throws IOException {
+        try (JsonParser parser = encoding.getFactory().createParser(payload)) {
+            return objectMapper.readValue(parser, HeatmapFrame.class);
+        }
+    }
+}
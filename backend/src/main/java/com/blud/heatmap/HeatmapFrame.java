@@ -0,0 +1,58 @@
+package com.blud.heatmap;
+
+/**
+ * Wire format of "/topic/heatmap". A snapshot carries all zones in
+ * {@code activity} and no {@code ids}; a delta carries only the zones that
+ * changed since the previous frame, {@code ids[i]} paired with
+ * {@code activity[i]}. On a zone-range topic the snapshot carries {@code ids}
+ * too, and both only cover the range. {@code version} increases with every zone change, so a
+ * client can drop deltas older than its snapshot.
+ */
+public class HeatmapFrame {
+    private long version;
+    private boolean snapshot;
+    private int[] ids;
+    private double[] activity;
+
+    public HeatmapFrame() {
+    }
+
+    public HeatmapFrame(long version, boolean snapshot, int[] ids, double[] activity) {
+        this.version = version;
+        this.snapshot = snapshot;
+        this.ids = ids;
+        this.activity = activity;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public int[] getIds() {
+        return ids;
+    }
+
+    public void setIds(int[] ids) {
+        this.ids = ids;
+    }
+
+    public double[] getActivity() {
+        return activity;
+    }
+
+    public void setActivity(double[] activity) {
+        this.activity = activity;
+    }
+}
@@ -0,0 +1,151 @@
+package com.blud.heatmap;
+
+import com.blud.broker.SessionDelivery;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Authoritative state of the campus heatmap: one activity value per zone in a
+ * primitive array plus a version counter. Zone changes only mark the zone
+ * dirty; {@link #drainDelta()} turns everything changed since the last call
+ * into one multi-zone frame, so the publish rate is independent of how often
+ * zones change. New "/topic/heatmap" subscribers get a full snapshot first;
+ * zone-range subscribers (see {@link HeatmapShards}) get their range only.
+ * <p>
+ * Installed as a broker-channel interceptor so followers in cluster mode keep
+ * their copy current from the leader's relayed deltas.
+ */
+@Component
+public class HeatmapModel implements ChannelInterceptor {
+
+    public static final String DESTINATION = "/topic/heatmap";
+    public static final int ZONES = 64;
+
+    private final ObjectMapper objectMapper;
+    private final double[] activity = new double[ZONES];
+    private long dirty; // One bit per zone
+    private long version;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    public HeatmapModel(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public synchronized void set(int zone, double value) {
+        if (activity[zone] == value) {
+            return;
+        }
+        activity[zone] = value;
+        dirty |= 1L << zone;
+        version++;
+    }
+
+    /**
+     * Zones changed since the previous call, or null if nothing changed.
+     */
+    public synchronized HeatmapFrame drainDelta() {
+        if (dirty == 0) {
+            return null;
+        }
+        int count = Long.bitCount(dirty);
+        int[] ids = new int[count];
+        double[] values = new double[count];
+        long bits = dirty;
+        for (int i = 0; i < count; i++) {
+            int zone = Long.numberOfTrailingZeros(bits);
+            ids[i] = zone;
+            values[i] = activity[zone];
+            bits &= bits - 1;
+        }
+        dirty = 0;
+        return new HeatmapFrame(version, false, ids, values);
+    }
+
+    public synchronized HeatmapFrame snapshot() {
+        return new HeatmapFrame(version, true, null, activity.clone());
+    }
+
+    /**
+     * Zones {@code from} to {@code to} inclusive, with their ids.
+     */
+    public synchronized HeatmapFrame snapshot(int from, int to) {
+        int[] ids = new int[to - from + 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        return new HeatmapFrame(version, true, ids, Arrays.copyOfRange(activity, from, to + 1));
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE && DESTINATION.equals(accessor.getDestination())
+                && message.getPayload() instanceof byte[] json) {
+            try {
+                apply(objectMapper.readValue(json, HeatmapFrame.class));
+            } catch (IOException e) {
+                // Not a frame; leave the model alone
+            }
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = subscribe.getDestination();
+        HeatmapFrame frame;
+        if (DESTINATION.equals(destination)) {
+            frame = snapshot();
+        } else {
+            int[] range = HeatmapShards.parseRange(destination);
+            if (range == null) {
+                return;
+            }
+            frame = snapshot(range[0], range[1]);
+        }
+        try {
+            SessionDelivery.sendToSubscription(clientOutboundChannel, subscribe.getSessionId(),
+                    subscribe.getSubscriptionId(), destination, objectMapper.writeValueAsBytes(frame));
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize heatmap snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a delta published by the leader. Frames at or below the local
+     * version (including this node's own deltas) are already reflected.
+     */
+    private synchronized void apply(HeatmapFrame frame) {
+        if (frame.isSnapshot() || frame.getVersion() <= version || frame.getIds() == null
+                || frame.getActivity() == null) {
+            return;
+        }
+        int[] ids = frame.getIds();
+        double[] values = frame.getActivity();
+        for (int i = 0; i < ids.length && i < values.length; i++) {
+            if (ids[i] >= 0 && ids[i] < ZONES) {
+                activity[ids[i]] = values[i];
+            }
+        }
+        version = frame.getVersion();
+    }
+}
@@ -0,0 +1,113 @@
+package com.blud.heatmap;
+
+import com.blud.broker.TopicShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Zone-range shards "/topic/heatmap/{from}-{to}" (inclusive zone ids, e.g.
+ * "/topic/heatmap/0-15"). Each delta on "/topic/heatmap" is cut down to the
+ * zones of every range subscribed on this node and published there with the
+ * same version; ranges without a changed zone get nothing. Installed as a
+ * broker-channel interceptor.
+ */
+@Component
+public class HeatmapShards implements ChannelInterceptor {
+
+    private final ObjectMapper objectMapper;
+    private final TopicShards topicShards;
+
+    public HeatmapShards(ObjectMapper objectMapper, TopicShards topicShards) {
+        this.objectMapper = objectMapper;
+        this.topicShards = topicShards;
+        topicShards.register(HeatmapModel.DESTINATION);
+    }
+
+    /**
+     * The {from, to} zones of a range destination, or null if it is not one.
+     */
+    public static int[] parseRange(String destination) {
+        String prefix = HeatmapModel.DESTINATION + "/";
+        if (destination == null || !destination.startsWith(prefix)) {
+            return null;
+        }
+        String range = destination.substring(prefix.length());
+        int dash = range.indexOf('-');
+        if (dash <= 0) {
+            return null;
+        }
+        try {
+            int from = Integer.parseInt(range.substring(0, dash));
+            int to = Integer.parseInt(range.substring(dash + 1));
+            return from >= 0 && from <= to && to < HeatmapModel.ZONES ? new int[] { from, to } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || !HeatmapModel.DESTINATION.equals(accessor.getDestination())
+                || !(message.getPayload() instanceof byte[] json)
+                || topicShards.subscribed(HeatmapModel.DESTINATION).isEmpty()) {
+            return message;
+        }
+
+        HeatmapFrame frame;
+        try {
+            frame = objectMapper.readValue(json, HeatmapFrame.class);
+        } catch (IOException e) {
+            return message;
+        }
+        if (frame.isSnapshot() || frame.getIds() == null || frame.getActivity() == null) {
+            return message;
+        }
+        for (String destination : topicShards.subscribed(HeatmapModel.DESTINATION)) {
+            int[] range = parseRange(destination);
+            HeatmapFrame slice = range != null ? slice(frame, range[0], range[1]) : null;
+            if (slice == null) {
+                continue;
+            }
+            try {
+                topicShards.publish(HeatmapModel.DESTINATION, destination, objectMapper.writeValueAsBytes(slice),
+                        accessor.getContentType());
+            } catch (IOException e) {
+                System.err.println("Failed to serialize heatmap slice: " + e.getMessage());
+            }
+        }
+        return message;
+    }
+
+    private static HeatmapFrame slice(HeatmapFrame delta, int from, int to) {
+        int[] ids = delta.getIds();
+        double[] values = delta.getActivity();
+        int count = 0;
+        for (int i = 0; i < ids.length && i < values.length; i++) {
+            if (ids[i] >= from && ids[i] <= to) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        int[] sliceIds = new int[count];
+        double[] sliceValues = new double[count];
+        int n = 0;
+        for (int i = 0; i < ids.length && i < values.length; i++) {
+            if (ids[i] >= from && ids[i] <= to) {
+                sliceIds[n] = ids[i];
+                sliceValues[n++] = values[i];
+            }
+        }
+        return new HeatmapFrame(delta.getVersion(), false, sliceIds, sliceValues);
+    }
+}
@@ -0,0 +1,119 @@
+package com.blud.metrics;
+
+import com.blud.broker.FanoutBrokerMessageHandler;
+import com.blud.broker.SessionBackpressure;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Broker-side metrics. As an interceptor on the broker channel it counts the
+ * messages and bytes published per topic; on the client outbound channel it
+ * counts what is handed to sessions per topic (after encoding, before
+ * backpressure decides to queue, conflate or drop). Shards such as
+ * "/topic/feed/north-hall" are counted under "/topic/feed/*" so client-chosen
+ * shard names cannot grow the label set. Channel executor queue
+ * depths, active threads and session counts are sampled at scrape time from the
+ * STOMP infrastructure beans, looked up by name because they are created by
+ * the same configuration that installs this interceptor.
+ */
+@Component
+public class BrokerMetrics implements ChannelInterceptor {
+
+    private static final String[] CHANNEL_EXECUTORS = { "clientInboundChannelExecutor",
+            "clientOutboundChannelExecutor", "brokerChannelExecutor" };
+
+    private final MetricsRegistry metrics;
+    private final BeanFactory beanFactory;
+    private final SessionBackpressure sessionBackpressure;
+    private final ObjectProvider<FanoutBrokerMessageHandler> fanoutBroker;
+    private final MetricsRegistry.Counter publishedMessages;
+    private final MetricsRegistry.Counter publishedBytes;
+    private final MetricsRegistry.Counter deliveredMessages;
+    private final MetricsRegistry.Counter deliveredBytes;
+
+    public BrokerMetrics(MetricsRegistry metrics, BeanFactory beanFactory, SessionBackpressure sessionBackpressure,
+            ObjectProvider<FanoutBrokerMessageHandler> fanoutBroker) {
+        this.metrics = metrics;
+        this.beanFactory = beanFactory;
+        this.sessionBackpressure = sessionBackpressure;
+        this.fanoutBroker = fanoutBroker;
+        this.publishedMessages = metrics.counter("blud_broker_published_messages_total",
+                "Messages published to the broker per topic", "topic");
+        this.publishedBytes = metrics.counter("blud_broker_published_bytes_total",
+                "Payload bytes published to the broker per topic", "topic");
+        this.deliveredMessages = metrics.counter("blud_broker_delivered_messages_total",
+                "Messages handed to client sessions per topic", "topic");
+        this.deliveredBytes = metrics.counter("blud_broker_delivered_bytes_total",
+                "Encoded payload bytes handed to client sessions per topic", "topic");
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        MetricsRegistry.Gauge queued = metrics.gauge("blud_channel_queue_depth",
+                "Tasks waiting in a STOMP channel executor", "channel");
+        MetricsRegistry.Gauge active = metrics.gauge("blud_channel_active_threads",
+                "Busy threads of a STOMP channel executor", "channel");
+        for (String name : CHANNEL_EXECUTORS) {
+            String channel = name.replace("ChannelExecutor", "");
+            queued.register(() -> executor(name).getThreadPoolExecutor().getQueue().size(), channel);
+            active.register(() -> executor(name).getActiveCount(), channel);
+        }
+
+        metrics.gauge("blud_websocket_sessions", "Open STOMP sessions by transport", "transport")
+                .register(() -> stats().getWebSocketSessions(), "websocket")
+                .register(() -> stats().getHttpStreamingSessions(), "http_streaming")
+                .register(() -> stats().getHttpPollingSessions(), "http_polling");
+        metrics.gauge("blud_backpressure_dropped", "Outbound messages dropped by backpressure for open sessions")
+                .register(sessionBackpressure::getTotalDropped);
+        metrics.gauge("blud_backpressure_conflated", "Outbound messages conflated by backpressure for open sessions")
+                .register(sessionBackpressure::getTotalConflated);
+
+        FanoutBrokerMessageHandler fanout = fanoutBroker.getIfAvailable();
+        if (fanout != null) {
+            metrics.gauge("blud_fanout_overruns", "Messages the fanout broker skipped after falling a ring behind")
+                    .register(fanout::getOverrunCount);
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || destination == null
+                || !destination.startsWith("/topic/")) {
+            return message;
+        }
+        long bytes = message.getPayload() instanceof byte[] payload ? payload.length : 0;
+        String topic = topicLabel(destination);
+        if (accessor.getSessionId() == null) {
+            publishedMessages.increment(topic);
+            publishedBytes.add(bytes, topic);
+        } else {
+            deliveredMessages.increment(topic);
+            deliveredBytes.add(bytes, topic);
+        }
+        return message;
+    }
+
+    private static String topicLabel(String destination) {
+        int shard = destination.indexOf('/', "/topic/".length());
+        return shard < 0 ? destination : destination.substring(0, shard) + "/*";
+    }
+
+    private ThreadPoolTaskExecutor executor(String name) {
+        return beanFactory.getBean(name, ThreadPoolTaskExecutor.class);
+    }
+
+    private SubProtocolWebSocketHandler.Stats stats() {
+        return beanFactory.getBean("subProtocolWebSocketHandler", SubProtocolWebSocketHandler.class).getStats();
+    }
+}
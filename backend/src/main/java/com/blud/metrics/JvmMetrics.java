@@ -0,0 +1,39 @@
+package com.blud.metrics;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Memory and platform-thread gauges, enough to compare a node's footprint
+ * between thread modes. Virtual threads are not counted by the thread MXBean;
+ * their stacks live on the heap.
+ */
+@Component
+public class JvmMetrics {
+
+    private final MetricsRegistry metrics;
+
+    public JvmMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        metrics.gauge("blud_jvm_memory_used_bytes", "Used JVM memory", "area")
+                .register(() -> memory.getHeapMemoryUsage().getUsed(), "heap")
+                .register(() -> memory.getNonHeapMemoryUsage().getUsed(), "nonheap");
+        metrics.gauge("blud_jvm_memory_committed_bytes", "Committed JVM memory", "area")
+                .register(() -> memory.getHeapMemoryUsage().getCommitted(), "heap")
+                .register(() -> memory.getNonHeapMemoryUsage().getCommitted(), "nonheap");
+        metrics.gauge("blud_jvm_platform_threads", "Live platform threads")
+                .register(threads::getThreadCount);
+        metrics.gauge("blud_jvm_platform_threads_peak", "Peak live platform threads since start")
+                .register(threads::getPeakThreadCount);
+    }
+}
@@ -0,0 +1,251 @@
+package com.blud.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Minimal in-process metrics registry rendered in the Prometheus text
+ * exposition format (served at {@code GET /api/metrics}). Metric families are
+ * created on first use and looked up by name afterwards, so components can ask
+ * for the same counter from several places. Recording is a LongAdder/DoubleAdder
+ * update on a per-label-set series; label values must come from small fixed
+ * sets (outcomes, engine names, topics).
+ */
+@Component
+public class MetricsRegistry {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Seconds; covers sub-millisecond ticks up to multi-second AI calls. */
+    public static final double[] LATENCY_BUCKETS = { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25,
+            0.5, 1, 2.5, 5, 10, 30 };
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help, String... labelNames) {
+        return register(name, () -> new Counter(name, help, labelNames), Counter.class);
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+        return register(name, () -> new Histogram(name, help, buckets, labelNames), Histogram.class);
+    }
+
+    public Gauge gauge(String name, String help, String... labelNames) {
+        return register(name, () -> new Gauge(name, help, labelNames), Gauge.class);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type()).append('\n');
+            family.write(out);
+        }
+        return out.toString();
+    }
+
+    private <T extends Family> T register(String name, Supplier<T> factory, Class<T> type) {
+        Family family = families.computeIfAbsent(name, n -> factory.get());
+        if (!type.isInstance(family)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type());
+        }
+        return type.cast(family);
+    }
+
+    public abstract static class Family {
+        final String name;
+        final String help;
+        final String[] labelNames;
+
+        Family(String name, String help, String[] labelNames) {
+            this.name = name;
+            this.help = help;
+            this.labelNames = labelNames;
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder out);
+
+        List<String> key(String[] labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException(name + " expects labels " + Arrays.toString(labelNames));
+            }
+            return List.of(labelValues);
+        }
+
+        void writeSample(StringBuilder out, String suffix, List<String> labelValues, String extraLabel,
+                String extraValue, double value) {
+            out.append(name).append(suffix);
+            if (!labelValues.isEmpty() || extraLabel != null) {
+                out.append('{');
+                for (int i = 0; i < labelValues.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    appendLabel(out, labelNames[i], labelValues.get(i));
+                }
+                if (extraLabel != null) {
+                    if (!labelValues.isEmpty()) {
+                        out.append(',');
+                    }
+                    appendLabel(out, extraLabel, extraValue);
+                }
+                out.append('}');
+            }
+            out.append(' ').append(format(value)).append('\n');
+        }
+
+        private static void appendLabel(StringBuilder out, String name, String value) {
+            out.append(name).append("=\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> out.append("\\\\");
+                    case '"' -> out.append("\\\"");
+                    case '\n' -> out.append("\\n");
+                    default -> out.append(c);
+                }
+            }
+            out.append('"');
+        }
+
+        static String format(double value) {
+            if (value == Double.POSITIVE_INFINITY) {
+                return "+Inf";
+            }
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return Long.toString((long) value);
+            }
+            return Double.toString(value);
+        }
+    }
+
+    public static final class Counter extends Family {
+        private final Map<List<String>, LongAdder> series = new ConcurrentHashMap<>();
+
+        Counter(String name, String help, String[] labelNames) {
+            super(name, help, labelNames);
+        }
+
+        public void increment(String... labelValues) {
+            add(1, labelValues);
+        }
+
+        public void add(long amount, String... labelValues) {
+            series.computeIfAbsent(key(labelValues), k -> new LongAdder()).add(amount);
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            series.forEach((labels, value) -> writeSample(out, "", labels, null, null, value.sum()));
+        }
+    }
+
+    public static final class Histogram extends Family {
+        private final double[] buckets;
+        private final Map<List<String>, Series> series = new ConcurrentHashMap<>();
+
+        Histogram(String name, String help, double[] buckets, String[] labelNames) {
+            super(name, help, labelNames);
+            this.buckets = buckets.clone();
+        }
+
+        public void observe(double value, String... labelValues) {
+            Series s = series.computeIfAbsent(key(labelValues), k -> new Series(buckets.length));
+            int i = 0;
+            while (i < buckets.length && value > buckets[i]) {
+                i++;
+            }
+            s.counts[i].increment(); // Non-cumulative here; summed when rendered
+            s.sum.add(value);
+        }
+
+        /** Convenience for durations measured with {@link System#nanoTime()}. */
+        public void observeNanos(long nanos, String... labelValues) {
+            observe(nanos / 1e9, labelValues);
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            series.forEach((labels, s) -> {
+                long cumulative = 0;
+                for (int i = 0; i <= buckets.length; i++) {
+                    cumulative += s.counts[i].sum();
+                    double le = i < buckets.length ? buckets[i] : Double.POSITIVE_INFINITY;
+                    writeSample(out, "_bucket", labels, "le", format(le), cumulative);
+                }
+                writeSample(out, "_sum", labels, null, null, s.sum.sum());
+                writeSample(out, "_count", labels, null, null, cumulative);
+            });
+        }
+
+        private static final class Series {
+            final LongAdder[] counts;
+            final DoubleAdder sum = new DoubleAdder();
+
+            Series(int buckets) {
+                counts = new LongAdder[buckets + 1];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = new LongAdder();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sampled when scraped, so the source of truth (a queue, a pool) stays where
+     * it is.
+     */
+    public static final class Gauge extends Family {
+        private final Map<List<String>, DoubleSupplier> series = new ConcurrentHashMap<>();
+
+        Gauge(String name, String help, String[] labelNames) {
+            super(name, help, labelNames);
+        }
+
+        public Gauge register(DoubleSupplier value, String... labelValues) {
+            series.put(key(labelValues), value);
+            return this;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            List<Map.Entry<List<String>, DoubleSupplier>> entries = new ArrayList<>(series.entrySet());
+            for (Map.Entry<List<String>, DoubleSupplier> entry : entries) {
+                double value;
+                try {
+                    value = entry.getValue().getAsDouble();
+                } catch (RuntimeException e) {
+                    continue; // Source not available (yet); leave the sample out
+                }
+                writeSample(out, "", entry.getKey(), null, null, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.blud.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In virtual-thread mode, streams the JFR {@code jdk.VirtualThreadPinned} event
+ * (a virtual thread blocked while pinned to its carrier, usually inside a
+ * {@code synchronized} block or a native frame) and reports each occurrence
+ * longer than the threshold: counted per code site in
+ * {@code blud_virtual_thread_pinned_total} and logged with the site, so the
+ * monitor or call that needs a ReentrantLock can be found without a profiler.
+ * Run with {@code -Djdk.tracePinnedThreads=short} for the JDK's own stack dumps.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private final long thresholdMillis;
+    private final MetricsRegistry.Counter pinned;
+    private final MetricsRegistry.Histogram pinnedSeconds;
+    private RecordingStream stream;
+
+    public PinningMonitor(MetricsRegistry metrics,
+            @Value("${blud.threads.virtual.pinning-threshold-ms:20}") long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+        this.pinned = metrics.counter("blud_virtual_thread_pinned_total",
+                "Virtual threads that blocked while pinned to their carrier, by code site", "site");
+        this.pinnedSeconds = metrics.histogram("blud_virtual_thread_pinned_seconds",
+                "How long pinned virtual threads blocked", MetricsRegistry.LATENCY_BUCKETS);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        System.out.println("Virtual-thread pinning monitor started (threshold " + thresholdMillis + "ms)");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = site(event);
+        pinned.increment(site);
+        pinnedSeconds.observeNanos(event.getDuration().toNanos());
+        System.err.println("Virtual thread pinned for " + event.getDuration().toMillis() + "ms at " + site);
+    }
+
+    /**
+     * The innermost application frame, falling back to the top frame.
+     */
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith("com.blud.")) {
+                return format(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : format(frames.get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+    }
+}
@@ -0,0 +1,167 @@
+package com.blud.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.ScheduledTaskObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@code @Scheduled} method through Spring's scheduled-task
+ * observations and records, per task ({@code Class.method}):
+ * <ul>
+ * <li>tick duration;</li>
+ * <li>tick lag: how late the tick started against its schedule. For a fixed
+ * rate that is the grid {@code firstStart + n * period}, so a task that keeps
+ * overrunning (or waits for a busy scheduler thread) shows growing lag; for a
+ * fixed delay it is measured from the end of the previous tick;</li>
+ * <li>failed ticks.</li>
+ * </ul>
+ */
+@Component
+public class SchedulerMetrics implements SchedulingConfigurer, EmbeddedValueResolverAware,
+        ObservationHandler<ScheduledTaskObservationContext> {
+
+    private static final String START = SchedulerMetrics.class.getName() + ".start";
+
+    private final MetricsRegistry.Histogram duration;
+    private final MetricsRegistry.Histogram lag;
+    private final MetricsRegistry.Counter errors;
+    private final Map<Method, TaskClock> clocks = new ConcurrentHashMap<>();
+    private StringValueResolver resolver;
+
+    public SchedulerMetrics(MetricsRegistry metrics) {
+        this.duration = metrics.histogram("blud_scheduler_tick_seconds", "Duration of @Scheduled ticks",
+                MetricsRegistry.LATENCY_BUCKETS, "task");
+        this.lag = metrics.histogram("blud_scheduler_tick_lag_seconds",
+                "How late @Scheduled ticks started against their schedule", MetricsRegistry.LATENCY_BUCKETS, "task");
+        this.errors = metrics.counter("blud_scheduler_tick_errors_total", "@Scheduled ticks that threw", "task");
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(this);
+        registrar.setObservationRegistry(observations);
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ScheduledTaskObservationContext;
+    }
+
+    @Override
+    public void onStart(ScheduledTaskObservationContext context) {
+        long now = System.nanoTime();
+        context.put(START, now);
+        TaskClock clock = clocks.computeIfAbsent(context.getMethod(), this::clockFor);
+        long late = clock.onStart(now);
+        if (late >= 0) {
+            lag.observeNanos(late, clock.name);
+        }
+    }
+
+    @Override
+    public void onError(ScheduledTaskObservationContext context) {
+        errors.increment(clocks.computeIfAbsent(context.getMethod(), this::clockFor).name);
+    }
+
+    @Override
+    public void onStop(ScheduledTaskObservationContext context) {
+        Long start = context.get(START);
+        if (start == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        TaskClock clock = clocks.computeIfAbsent(context.getMethod(), this::clockFor);
+        clock.onStop(now);
+        duration.observeNanos(now - start, clock.name);
+    }
+
+    private TaskClock clockFor(Method method) {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Scheduled scheduled = method.getAnnotation(Scheduled.class);
+        if (scheduled == null) {
+            return new TaskClock(name, 0, false);
+        }
+        TimeUnit unit = scheduled.timeUnit();
+        long rate = periodNanos(scheduled.fixedRate(), scheduled.fixedRateString(), unit);
+        if (rate > 0) {
+            return new TaskClock(name, rate, true);
+        }
+        return new TaskClock(name, periodNanos(scheduled.fixedDelay(), scheduled.fixedDelayString(), unit), false);
+    }
+
+    /**
+     * The period in nanoseconds, or -1 if it is unset or not a plain number.
+     */
+    private long periodNanos(long value, String text, TimeUnit unit) {
+        if (value >= 0) {
+            return unit.toNanos(value);
+        }
+        if (text.isEmpty()) {
+            return -1;
+        }
+        String resolved = resolver != null ? resolver.resolveStringValue(text) : text;
+        try {
+            return unit.toNanos(Long.parseLong(resolved.trim()));
+        } catch (RuntimeException e) {
+            return -1; // Duration syntax or cron: no lag, duration is still recorded
+        }
+    }
+
+    /**
+     * Expected start of the next tick. Ticks of one task never overlap, so plain
+     * fields guarded by the monitor are enough.
+     */
+    private static final class TaskClock {
+        final String name;
+        final long periodNanos;
+        final boolean fixedRate;
+        long firstStart = -1;
+        long ticks;
+        long lastStop = -1;
+
+        TaskClock(String name, long periodNanos, boolean fixedRate) {
+            this.name = name;
+            this.periodNanos = periodNanos;
+            this.fixedRate = fixedRate;
+        }
+
+        /** Nanoseconds late, or -1 when the schedule is unknown or this is the first tick. */
+        synchronized long onStart(long now) {
+            if (periodNanos <= 0) {
+                return -1;
+            }
+            if (fixedRate) {
+                if (firstStart < 0) {
+                    firstStart = now;
+                    ticks = 1;
+                    return -1;
+                }
+                long expected = firstStart + ticks++ * periodNanos;
+                return Math.max(0, now - expected);
+            }
+            return lastStop < 0 ? -1 : Math.max(0, now - lastStop - periodNanos);
+        }
+
+        synchronized void onStop(long now) {
+            lastStop = now;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.blud.quiz;
+
+import com.blud.cluster.ClusterCoordinator;
+import com.blud.cluster.ClusterRelay;
+import com.blud.engine.EngineScheduler;
+import com.blud.engine.TickPolicy;
+import com.blud.metrics.MetricsRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quizzes open for answers. The correct option never goes out with the quiz
+ * post; the leader hands it to every node as an answer key on an internal
+ * cluster destination, so answers are checked on whichever node the client is
+ * connected to.
+ * <p>
+ * Answers only bump a {@link LongAdder} per option. A "quiz-results" engine
+ * tick then publishes at most one "/topic/quiz/{id}" frame per changed quiz
+ * per period, however many answers arrived: on the leader from the merged
+ * counts, while followers send their per-tick deltas to the leader instead.
+ * After the answer window plus a short grace period for late deltas the leader
+ * publishes a final frame revealing the correct option.
+ * <p>
+ * Installed as a broker-channel interceptor to receive keys and deltas, local
+ * or relayed.
+ */
+@Component
+public class LiveQuizzes implements ChannelInterceptor {
+
+    public static final String RESULTS_PREFIX = "/topic/quiz/";
+
+    private static final String KEY_DESTINATION = ClusterRelay.INTERNAL_PREFIX + "quiz/key";
+    private static final String TALLY_DESTINATION = ClusterRelay.INTERNAL_PREFIX + "quiz/tally";
+
+    public enum Outcome {
+        CORRECT, WRONG, DUPLICATE, CLOSED, INVALID
+    }
+
+    private final Map<Long, Quiz> quizzes = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final ClusterCoordinator cluster;
+    private final MetricsRegistry.Counter answers;
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate template;
+
+    @Autowired
+    private EngineScheduler engines;
+
+    @Value("${blud.quiz.answer-window-ms:60000}")
+    private long answerWindow;
+
+    @Value("${blud.engines.quiz-results.period-ms:500}")
+    private long resultsPeriod;
+
+    @Value("${blud.engines.quiz-results.policy:coalesce}")
+    private String resultsPolicy;
+
+    public LiveQuizzes(ObjectMapper objectMapper, ClusterCoordinator cluster, MetricsRegistry metrics) {
+        this.objectMapper = objectMapper;
+        this.cluster = cluster;
+        this.answers = metrics.counter("blud_quiz_answers_total", "Quiz answers received by outcome", "outcome");
+    }
+
+    @PostConstruct
+    public void start() {
+        engines.schedule("quiz-results", resultsPeriod, TickPolicy.fromString(resultsPolicy), this::publishResults);
+    }
+
+    /**
+     * Opens a quiz for answers on every node. Called by the leader when it
+     * publishes the quiz post.
+     */
+    public void open(long quizId, int options, int correctAnswer) {
+        QuizKey key = new QuizKey();
+        key.quizId = quizId;
+        key.options = options;
+        key.correctAnswer = correctAnswer;
+        key.closesAt = System.currentTimeMillis() + answerWindow;
+        template.convertAndSend(KEY_DESTINATION, key);
+    }
+
+    /**
+     * Checks and counts one answer. Each session, and each email if given, may
+     * answer a quiz once.
+     */
+    public Outcome answer(long quizId, int option, String sessionId, String email) {
+        Outcome outcome = check(quizId, option, sessionId, email);
+        answers.increment(outcome.name().toLowerCase());
+        return outcome;
+    }
+
+    private Outcome check(long quizId, int option, String sessionId, String email) {
+        Quiz quiz = quizzes.get(quizId);
+        if (quiz == null || System.currentTimeMillis() >= quiz.closesAt) {
+            return Outcome.CLOSED;
+        }
+        if (option < 0 || option >= quiz.counts.length) {
+            return Outcome.INVALID;
+        }
+        if (!quiz.voters.add("session:" + sessionId)
+                || (email != null && !email.isBlank() && !quiz.voters.add("email:" + email))) {
+            return Outcome.DUPLICATE;
+        }
+        quiz.counts[option].increment();
+        quiz.changed.set(true);
+        return option == quiz.correctAnswer ? Outcome.CORRECT : Outcome.WRONG;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || destination == null
+                || !destination.startsWith(ClusterRelay.INTERNAL_PREFIX)
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        try {
+            if (KEY_DESTINATION.equals(destination)) {
+                QuizKey key = objectMapper.readValue(json, QuizKey.class);
+                if (key.options > 0 && key.options <= 16) {
+                    quizzes.putIfAbsent(key.quizId, new Quiz(key));
+                }
+            } else if (TALLY_DESTINATION.equals(destination) && cluster.isLeader()) {
+                merge(objectMapper.readValue(json, QuizTally.class));
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring malformed quiz message on " + destination + ": " + e.getMessage());
+        }
+        return message;
+    }
+
+    private void merge(QuizTally tally) {
+        Quiz quiz = quizzes.get(tally.quizId);
+        if (quiz == null || tally.counts == null) {
+            return; // Finalized already; a late delta only costs its count
+        }
+        for (int i = 0; i < tally.counts.length && i < quiz.counts.length; i++) {
+            quiz.counts[i].add(tally.counts[i]);
+        }
+        quiz.changed.set(true);
+    }
+
+    /**
+     * One tick: a frame or a delta per quiz that changed, and finalization of
+     * quizzes past their grace period.
+     */
+    public void publishResults() {
+        long now = System.currentTimeMillis();
+        boolean leader = cluster.isLeader();
+        Iterator<Quiz> it = quizzes.values().iterator();
+        while (it.hasNext()) {
+            Quiz quiz = it.next();
+            boolean finished = now >= quiz.closesAt + 2 * resultsPeriod;
+            boolean changed = quiz.changed.getAndSet(false);
+            if (leader) {
+                if (changed || finished) {
+                    template.convertAndSend(RESULTS_PREFIX + quiz.id, new QuizResults(quiz.id, quiz.sums(false),
+                            finished, finished ? quiz.correctAnswer : null));
+                }
+            } else if (changed) {
+                QuizTally tally = new QuizTally();
+                tally.quizId = quiz.id;
+                tally.counts = quiz.sums(true);
+                template.convertAndSend(TALLY_DESTINATION, tally);
+            }
+            if (finished) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Quiz {
+        final long id;
+        final int correctAnswer;
+        final long closesAt;
+        final LongAdder[] counts;
+        final Set<String> voters = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean changed = new AtomicBoolean();
+
+        Quiz(QuizKey key) {
+            this.id = key.quizId;
+            this.correctAnswer = key.correctAnswer;
+            this.closesAt = key.closesAt;
+            this.counts = new LongAdder[key.options];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Per-option counts; with reset, only what arrived since the last reset.
+         */
+        long[] sums(boolean reset) {
+            long[] sums = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                sums[i] = reset ? counts[i].sumThenReset() : counts[i].sum();
+            }
+            return sums;
+        }
+    }
+
+    static class QuizKey {
+        public long quizId;
+        public int options;
+        public int correctAnswer;
+        public long closesAt;
+    }
+
+    static class QuizTally {
+        public long quizId;
+        public long[] counts;
+    }
+}
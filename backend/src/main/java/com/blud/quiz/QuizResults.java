@@ -0,0 +1,66 @@
+package com.blud.quiz;
+
+/**
+ * Wire format of "/topic/quiz/{id}": answers per option so far. The correct
+ * option is only revealed in the final frame, once the quiz has closed.
+ */
+public class QuizResults {
+    private long quizId;
+    private long[] counts;
+    private long total;
+    private boolean closed;
+    private Integer correctAnswer;
+
+    public QuizResults() {
+    }
+
+    public QuizResults(long quizId, long[] counts, boolean closed, Integer correctAnswer) {
+        this.quizId = quizId;
+        this.counts = counts;
+        for (long count : counts) {
+            this.total += count;
+        }
+        this.closed = closed;
+        this.correctAnswer = correctAnswer;
+    }
+
+    public long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(long quizId) {
+        this.quizId = quizId;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(long[] counts) {
+        this.counts = counts;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void setClosed(boolean closed) {
+        this.closed = closed;
+    }
+
+    public Integer getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public void setCorrectAnswer(Integer correctAnswer) {
+        this.correctAnswer = correctAnswer;
+    }
+}
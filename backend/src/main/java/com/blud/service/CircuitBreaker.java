@@ -0,0 +1,164 @@
+package com.blud.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count-based sliding-window circuit breaker for OpenAI calls.
+ * CLOSED records every outcome; when the failure or slow-call rate over the
+ * window crosses its threshold the breaker OPENs and callers fail fast. After
+ * the open period a limited number of HALF_OPEN probes decide whether to close
+ * again or re-open.
+ */
+@Component
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    // Ring buffer of the last windowSize outcomes
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int recorded;
+    private int next;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long rejectedCalls;
+    private String lastReason = "initial";
+
+    public CircuitBreaker(
+            @Value("${blud.openai.breaker.window-size:20}") int windowSize,
+            @Value("${blud.openai.breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${blud.openai.breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${blud.openai.breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${blud.openai.breaker.slow-call-ms:6000}") long slowCallMillis,
+            @Value("${blud.openai.breaker.open-ms:30000}") long openMillis,
+            @Value("${blud.openai.breaker.half-open-probes:2}") int halfOpenProbes) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * Returns true if a call may proceed. Every permitted call must be followed by
+     * exactly one {@link #onResult(boolean, long)}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejectedCalls++;
+                return false;
+            }
+            transition(State.HALF_OPEN, "open period elapsed, probing");
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                rejectedCalls++;
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(boolean success, long latencyMillis) {
+        boolean slow = latencyMillis >= slowCallMillis;
+
+        if (state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open(success ? "probe slow (" + latencyMillis + "ms)" : "probe failed");
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transition(State.CLOSED, probesSucceeded + " probes succeeded");
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // Late result of a call started before the breaker opened
+        }
+
+        failures[next] = !success;
+        slowCalls[next] = slow;
+        next = (next + 1) % windowSize;
+        if (recorded < windowSize) {
+            recorded++;
+        }
+        if (recorded < minimumCalls) {
+            return;
+        }
+
+        double failureRate = rate(failures);
+        double slowRate = rate(slowCalls);
+        if (failureRate >= failureRateThreshold) {
+            open(String.format("failure rate %.0f%% over last %d calls", failureRate, recorded));
+        } else if (slowRate >= slowCallRateThreshold) {
+            open(String.format("slow-call rate %.0f%% over last %d calls", slowRate, recorded));
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.name());
+        status.put("reason", lastReason);
+        status.put("windowCalls", recorded);
+        status.put("failureRate", recorded == 0 ? 0.0 : rate(failures));
+        status.put("slowCallRate", recorded == 0 ? 0.0 : rate(slowCalls));
+        status.put("rejectedCalls", rejectedCalls);
+        if (state == State.OPEN) {
+            status.put("retryInMs", Math.max(0, openMillis - (System.currentTimeMillis() - openedAt)));
+        }
+        return status;
+    }
+
+    private void open(String reason) {
+        openedAt = System.currentTimeMillis();
+        transition(State.OPEN, reason);
+    }
+
+    private void transition(State target, String reason) {
+        System.err.println("OpenAI circuit " + state + " -> " + target + ": " + reason);
+        state = target;
+        lastReason = reason;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (target != State.HALF_OPEN) {
+            // Each closed/open period starts with a fresh window
+            recorded = 0;
+            next = 0;
+        }
+    }
+
+    private double rate(boolean[] outcomes) {
+        int hits = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (outcomes[i]) {
+                hits++;
+            }
+        }
+        return 100.0 * hits / recorded;
+    }
+}
@@ -0,0 +1,222 @@
+package com.blud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LRU + TTL cache of chat completions keyed by model, temperature and prompt.
+ * Every successful completion is stored, and each key keeps the latest few so a
+ * call that cannot reach the API (breaker open, rate limited, saturated, failed)
+ * can still be answered with a random real sample instead of simulated text.
+ * It is never consulted ahead of a call: the engines' prompts are fixed strings
+ * and would otherwise be served the same few batches for the whole TTL. Every
+ * stored completion is appended to a journal file that is replayed (and
+ * compacted) on startup.
+ */
+@Component
+public class CompletionCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final int variantsPerKey;
+    private final Path journalPath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LinkedHashMap<String, ArrayDeque<CachedCompletion>> entries;
+    private BufferedWriter journal;
+
+    public CompletionCache(
+            @Value("${blud.openai.cache.enabled:true}") boolean enabled,
+            @Value("${blud.openai.cache.max-entries:256}") int maxEntries,
+            @Value("${blud.openai.cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${blud.openai.cache.variants-per-key:3}") int variantsPerKey,
+            @Value("${blud.openai.cache.file:data/ai-cache.jsonl}") String journalFile) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.variantsPerKey = Math.max(1, variantsPerKey);
+        this.journalPath = journalFile == null || journalFile.isBlank() ? null : Paths.get(journalFile);
+
+        // Access-ordered map evicts the least recently used key
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayDeque<CachedCompletion>> eldest) {
+                return size() > CompletionCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static String key(String model, double temperature, String prompt) {
+        return model + "|" + temperature + "|" + prompt;
+    }
+
+    /**
+     * Returns a random live completion for the key, or null if there is none.
+     */
+    public synchronized String sample(String key) {
+        if (!enabled) {
+            return null;
+        }
+        ArrayDeque<CachedCompletion> variants = entries.get(key);
+        if (variants == null) {
+            return null;
+        }
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        variants.removeIf(c -> c.timestamp < cutoff);
+        if (variants.isEmpty()) {
+            entries.remove(key);
+            return null;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(variants.size());
+        Iterator<CachedCompletion> it = variants.iterator();
+        for (int i = 0; i < pick; i++) {
+            it.next();
+        }
+        return it.next().text;
+    }
+
+    public synchronized void put(String key, String completion) {
+        if (!enabled) {
+            return;
+        }
+        CachedCompletion cached = new CachedCompletion(System.currentTimeMillis(), completion);
+        insert(key, cached);
+        appendToJournal(key, cached);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        if (!enabled || journalPath == null) {
+            return;
+        }
+        try {
+            if (Files.exists(journalPath)) {
+                replay();
+                compact();
+            } else if (journalPath.getParent() != null) {
+                Files.createDirectories(journalPath.getParent());
+            }
+            journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("AI cache journal unavailable, running memory-only: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close AI cache journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    private void insert(String key, CachedCompletion cached) {
+        ArrayDeque<CachedCompletion> variants = entries.computeIfAbsent(key, k -> new ArrayDeque<>());
+        variants.addLast(cached);
+        while (variants.size() > variantsPerKey) {
+            variants.removeFirst();
+        }
+    }
+
+    private void replay() throws IOException {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (IOException e) {
+                    continue; // Torn write from a crash, skip it
+                }
+                if (record.key != null && record.text != null && record.ts >= cutoff) {
+                    insert(record.key, new CachedCompletion(record.ts, record.text));
+                    loaded++;
+                }
+            }
+        }
+        System.out.println("AI cache warm start: " + loaded + " completions, " + entries.size() + " keys");
+    }
+
+    /**
+     * Rewrites the journal with only the live entries so it does not grow forever.
+     */
+    private void compact() throws IOException {
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, ArrayDeque<CachedCompletion>> entry : entries.entrySet()) {
+                for (CachedCompletion cached : entry.getValue()) {
+                    writer.write(toLine(entry.getKey(), cached));
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void appendToJournal(String key, CachedCompletion cached) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(toLine(key, cached));
+            journal.newLine();
+            journal.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to append AI cache journal: " + e.getMessage());
+        }
+    }
+
+    private String toLine(String key, CachedCompletion cached) throws IOException {
+        JournalRecord record = new JournalRecord();
+        record.key = key;
+        record.ts = cached.timestamp;
+        record.text = cached.text;
+        return objectMapper.writeValueAsString(record);
+    }
+
+    private static class CachedCompletion {
+        final long timestamp;
+        final String text;
+
+        CachedCompletion(long timestamp, String text) {
+            this.timestamp = timestamp;
+            this.text = text;
+        }
+    }
+
+    private static class JournalRecord {
+        public String key;
+        public long ts;
+        public String text;
+    }
+}
@@ -0,0 +1,149 @@
+package com.blud.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the chat completions SSE stream line by line. Each {@code data:}
+ * chunk is scanned with Jackson's streaming parser for
+ * {@code choices[0].delta.content}; the accumulated text is handed to the
+ * partial callback with markdown fences removed (a fence split across chunks is
+ * held back until it is complete), throttled to one update per interval.
+ */
+class CompletionStreamSubscriber implements Flow.Subscriber<String> {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final String FENCE = "```";
+    private static final String JSON_FENCE = "```json";
+
+    private final Consumer<String> onPartial;
+    private final long minIntervalNanos;
+    private final StringBuilder raw = new StringBuilder();
+    private long lastEmitNanos;
+    private int lastEmittedLength;
+
+    CompletionStreamSubscriber(Consumer<String> onPartial, long minIntervalMillis) {
+        this.onPartial = onPartial;
+        this.minIntervalNanos = minIntervalMillis * 1_000_000;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (!line.startsWith("data:")) {
+            return; // Blank separators, comments and non-SSE error bodies
+        }
+        String payload = line.substring(5).trim();
+        if (payload.equals("[DONE]")) {
+            return;
+        }
+
+        String delta;
+        try {
+            delta = extractDelta(payload);
+        } catch (IOException e) {
+            return; // Skip a malformed chunk rather than abort the stream
+        }
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+
+        String visible;
+        synchronized (raw) {
+            raw.append(delta);
+            visible = visibleText(raw);
+        }
+
+        long now = System.nanoTime();
+        if (visible.length() > lastEmittedLength && now - lastEmitNanos >= minIntervalNanos) {
+            lastEmitNanos = now;
+            lastEmittedLength = visible.length();
+            try {
+                onPartial.accept(visible);
+            } catch (RuntimeException e) {
+                System.err.println("Partial completion delivery failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // Surfaced through the response future
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Full streamed text with fences removed; valid once the response completed.
+     */
+    String result() {
+        synchronized (raw) {
+            return OpenAIService.stripCodeFences(raw.toString());
+        }
+    }
+
+    private static String extractDelta(String payload) throws IOException {
+        try (JsonParser parser = JSON.createParser(payload)) {
+            boolean inDelta = false;
+            int deltaDepth = 0;
+            int depth = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    depth++;
+                } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    if (inDelta && depth == deltaDepth) {
+                        return null; // Delta without content (role or finish chunk)
+                    }
+                    depth--;
+                } else if (token == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    if (!inDelta && name.equals("delta")) {
+                        JsonToken value = parser.nextToken();
+                        if (value == JsonToken.START_OBJECT) {
+                            depth++;
+                            inDelta = true;
+                            deltaDepth = depth;
+                        } else if (value == JsonToken.START_ARRAY) {
+                            depth++;
+                        }
+                    } else if (inDelta && depth == deltaDepth && name.equals("content")) {
+                        return parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes complete fences and drops a trailing partial fence such as "``" or
+     * "```js" that may still turn into a fence with the next chunk.
+     */
+    private static String visibleText(CharSequence text) {
+        String s = text.toString();
+        int cut = s.length();
+        int tick = s.lastIndexOf('`');
+        if (tick >= 0 && tick >= s.length() - JSON_FENCE.length()) {
+            int start = tick;
+            while (start > 0 && s.charAt(start - 1) == '`') {
+                start--;
+            }
+            if (JSON_FENCE.startsWith(s.substring(start))) {
+                cut = start;
+            }
+        }
+        return s.substring(0, cut).replace(JSON_FENCE, "").replace(FENCE, "").trim();
+    }
+}
@@ -1,40 +1,327 @@
 package com.blud.service;
 
+import com.blud.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.MediaType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class OpenAIService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String MODEL = "gpt-3.5-turbo";
+    private static final double TEMPERATURE = 0.9;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService httpExecutor;
+    private final HttpClient httpClient;
+    private final URI completionsUri;
+    private final Semaphore inFlight;
+    private final Duration requestTimeout;
+    private final CompletionCache cache;
+    private final CircuitBreaker breaker;
+    private final RateLimitPacer pacer;
+    private final MetricsRegistry.Histogram callLatency;
+    private final MetricsRegistry.Counter fallbacks;
+    private final int maxInFlight;
+    private final boolean streamingEnabled;
+    private final long partialIntervalMillis;
     private String apiKey = System.getenv("OPENAI_API_KEY");
 
+    public OpenAIService(
+            @Value("${blud.openai.base-url:https://api.openai.com/v1}") String baseUrl,
+            @Value("${blud.openai.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${blud.openai.request-timeout-ms:8000}") long requestTimeoutMs,
+            @Value("${blud.openai.max-in-flight:4}") int maxInFlight,
+            @Value("${blud.openai.streaming.enabled:false}") boolean streamingEnabled,
+            @Value("${blud.openai.streaming.partial-interval-ms:150}") long partialIntervalMillis,
+            CompletionCache cache,
+            CircuitBreaker breaker,
+            RateLimitPacer pacer,
+            MetricsRegistry metrics) {
+        // Point base-url at a local stub (see backend/benchmarks) to exercise this client offline
+        this.completionsUri = URI.create(baseUrl.replaceAll("/+$", "") + "/chat/completions");
+        this.cache = cache;
+        this.breaker = breaker;
+        this.pacer = pacer;
+        this.callLatency = metrics.histogram("blud_openai_request_seconds",
+                "Chat completion round trips by outcome", MetricsRegistry.LATENCY_BUCKETS, "outcome");
+        this.fallbacks = metrics.counter("blud_openai_fallbacks_total",
+                "Completions answered with fallback content instead of the API", "reason");
+        this.maxInFlight = maxInFlight;
+        this.streamingEnabled = streamingEnabled;
+        this.partialIntervalMillis = partialIntervalMillis;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.inFlight = new Semaphore(maxInFlight);
+
+        // Small dedicated pool so response handling never lands on the scheduler thread
+        AtomicInteger threadCount = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(2, maxInFlight), r -> {
+            Thread t = new Thread(r, "openai-http-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // HttpClient keeps connections alive and reuses them across calls
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(httpExecutor)
+                .build();
+    }
+
     public void setApiKey(String key) {
         this.apiKey = key;
     }
 
     public String generateContent(String prompt) {
+        // Never throws: every failure path resolves to fallback content
+        return generateContentAsync(prompt).join();
+    }
+
+    public CompletableFuture<String> generateContentAsync(String prompt) {
         if (apiKey == null || apiKey.isEmpty()) {
-            return "Simulated AI: Key not set. " + prompt;
+            fallbacks.increment("no_key");
+            return CompletableFuture.completedFuture("Simulated AI: Key not set. " + prompt);
         }
 
-        String url = "https://api.openai.com/v1/chat/completions";
+        // Prompts are fixed per engine; the cache only stands in when no fresh completion can be had
+        String cacheKey = CompletionCache.key(MODEL, TEMPERATURE, prompt);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
+        HttpRequest request;
+        try {
+            request = buildRequest(prompt, false);
+        } catch (JsonProcessingException e) {
+            System.err.println("OpenAI API Failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(fallback(cacheKey, prompt, "request_error"));
+        }
+
+        if (!acquireCallPermit()) {
+            return CompletableFuture.completedFuture(fallback(cacheKey, prompt, "rejected"));
+        }
 
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> call = httpClient.sendAsync(request,
+                HttpResponse.BodyHandlers.ofString());
+        // The permit is held until the exchange itself finishes (bounded by the request timeout)
+        call.whenComplete((response, e) -> releaseCallPermit(response, e, startNanos));
+
+        return withDeadline(call)
+                .thenApply(response -> {
+                    String content = extractContent(response);
+                    if (content == null) {
+                        fallbacks.increment("empty");
+                        return "Fallback content.";
+                    }
+                    cache.put(cacheKey, content);
+                    return content;
+                })
+                .exceptionally(e -> {
+                    System.err.println("OpenAI API Failed: " + e.getMessage());
+                    return fallback(cacheKey, prompt, "failed");
+                });
+    }
+
+    /**
+     * Streaming variant: requests an SSE completion and hands the growing text
+     * (fences removed) to {@code onPartial} as tokens arrive, at most once per
+     * partial interval. The returned future completes with the full text, or with
+     * the usual fallback content; fallbacks produce no partials.
+     */
+    public CompletableFuture<String> streamContentAsync(String prompt, Consumer<String> onPartial) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            fallbacks.increment("no_key");
+            return CompletableFuture.completedFuture("Simulated AI: Key not set. " + prompt);
+        }
+
+        // Prompts are fixed per engine; the cache only stands in when no fresh completion can be had
+        String cacheKey = CompletionCache.key(MODEL, TEMPERATURE, prompt);
+
+        HttpRequest request;
+        try {
+            request = buildRequest(prompt, true);
+        } catch (JsonProcessingException e) {
+            System.err.println("OpenAI API Failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(fallback(cacheKey, prompt, "request_error"));
+        }
+
+        if (!acquireCallPermit()) {
+            return CompletableFuture.completedFuture(fallback(cacheKey, prompt, "rejected"));
+        }
+
+        CompletionStreamSubscriber subscriber = new CompletionStreamSubscriber(onPartial, partialIntervalMillis);
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<Void>> call = httpClient.sendAsync(request,
+                HttpResponse.BodyHandlers.fromLineSubscriber(subscriber));
+        call.whenComplete((response, e) -> releaseCallPermit(response, e, startNanos));
+
+        return withDeadline(call)
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("HTTP " + response.statusCode());
+                    }
+                    String content = subscriber.result();
+                    if (content.isEmpty()) {
+                        fallbacks.increment("empty");
+                        return "Fallback content.";
+                    }
+                    cache.put(cacheKey, content);
+                    return content;
+                })
+                .exceptionally(e -> {
+                    System.err.println("OpenAI API Stream Failed: " + e.getMessage());
+                    return fallback(cacheKey, prompt, "failed");
+                });
+    }
+
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    /**
+     * Breaker and pacing state, so operators can see why the feed is in offline mode.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (apiKey == null || apiKey.isEmpty()) {
+            status.put("mode", "simulated");
+        } else {
+            status.put("mode", breaker.getState() == CircuitBreaker.State.CLOSED ? "live" : "offline");
+        }
+        status.put("inFlight", maxInFlight - inFlight.availablePermits());
+        status.put("maxInFlight", maxInFlight);
+        status.put("breaker", breaker.snapshot());
+        status.put("pacer", pacer.snapshot());
+        status.put("cachedKeys", cache.size());
+        return status;
+    }
+
+    /**
+     * Fail fast without touching the network while rate-limited, saturated or
+     * while the circuit is open. A true result must be paired with
+     * {@link #releaseCallPermit}.
+     */
+    private boolean acquireCallPermit() {
+        if (!pacer.tryAcquire()) {
+            return false;
+        }
+
+        // Bounded concurrency: shed load instead of queueing behind a slow API
+        if (!inFlight.tryAcquire()) {
+            System.err.println("OpenAI API Saturated: " + maxInFlight + " calls in flight");
+            return false;
+        }
+
+        if (!breaker.tryAcquirePermission()) {
+            inFlight.release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Content for a call that could not be made or failed: a recent real
+     * completion of the same prompt if the cache has one, else simulated text.
+     */
+    private String fallback(String cacheKey, String prompt, String reason) {
+        fallbacks.increment(reason);
+        String cached = cache.sample(cacheKey);
+        return cached != null ? cached : "Simulated Fallback: " + prompt;
+    }
+
+    /**
+     * Fails the result with a TimeoutException once the request timeout passes,
+     * and aborts the exchange at that point so a timed-out call does not keep
+     * its connection (and call permit) until the server gives up.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> withDeadline(CompletableFuture<HttpResponse<T>> call) {
+        CompletableFuture<HttpResponse<T>> result = call.copy()
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((response, e) -> {
+            if (e instanceof TimeoutException) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void releaseCallPermit(HttpResponse<?> response, Throwable error, long startNanos) {
+        inFlight.release();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        callLatency.observeNanos(elapsedNanos, outcome(response, error));
+        recordOutcome(response, error, elapsedNanos / 1_000_000);
+    }
+
+    /**
+     * A call past its deadline fails with the client's own timeout or, once
+     * {@link #withDeadline} has aborted it, with the cancellation; both count
+     * as "timeout".
+     */
+    private static String outcome(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            boolean timedOut = cause instanceof HttpTimeoutException || cause instanceof TimeoutException
+                    || cause instanceof CancellationException;
+            return timedOut ? "timeout" : "error";
+        }
+        if (response.statusCode() == 429) {
+            return "rate_limited";
+        }
+        return response.statusCode() / 100 == 2 ? "success" : "http_error";
+    }
+
+    private void recordOutcome(HttpResponse<?> response, Throwable error, long latencyMillis) {
+        if (error != null) {
+            breaker.onResult(false, latencyMillis);
+        } else if (response.statusCode() == 429) {
+            pacer.onRateLimited(response.headers());
+            breaker.onResult(false, latencyMillis);
+        } else {
+            boolean ok = response.statusCode() / 100 == 2;
+            if (ok) {
+                pacer.onSuccess(response.headers());
+            }
+            breaker.onResult(ok, latencyMillis);
+        }
+    }
+
+    /**
+     * Removes markdown code fences the model sometimes wraps around JSON output.
+     */
+    public static String stripCodeFences(String content) {
+        if (content.contains("```json")) {
+            return content.replace("```json", "").replace("```", "").trim();
+        } else if (content.contains("```")) {
+            return content.replace("```", "").trim();
+        }
+        return content.trim();
+    }
+
+    private HttpRequest buildRequest(String prompt, boolean stream) throws JsonProcessingException {
         Map<String, Object> body = new HashMap<>();
-        body.put("model", "gpt-3.5-turbo");
+        body.put("model", MODEL);
 
         List<Map<String, String>> messages = new ArrayList<>();
         Map<String, String> message = new HashMap<>();
@@ -43,30 +330,36 @@ public class OpenAIService {
         messages.add(message);
 
         body.put("messages", messages);
-        body.put("temperature", 0.9);
+        body.put("temperature", TEMPERATURE);
+        if (stream) {
+            body.put("stream", true);
+        }
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+        return HttpRequest.newBuilder(completionsUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
 
+    private String extractContent(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
         try {
-            @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> responseBody = response.getBody();
-            if (responseBody != null) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-                if (choices != null && !choices.isEmpty()) {
-                    Map<String, Object> firstChoice = choices.get(0);
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> msg = (Map<String, String>) firstChoice.get("message");
-                    return msg.get("content").trim();
-                }
+            JsonNode choices = objectMapper.readTree(response.body()).path("choices");
+            if (choices.isArray() && !choices.isEmpty()) {
+                return choices.get(0).path("message").path("content").asText().trim();
             }
-        } catch (Exception e) {
-            System.err.println("OpenAI API Failed: " + e.getMessage());
-            return "Simulated Fallback: " + prompt;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed completion: " + e.getOriginalMessage(), e);
         }
+        return null;
+    }
 
-        return "Fallback content.";
+    @PreDestroy
+    public void shutdown() {
+        httpExecutor.shutdownNow();
     }
 }
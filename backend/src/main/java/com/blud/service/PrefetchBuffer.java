@@ -0,0 +1,88 @@
+package com.blud.service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Bounded queue of pre-generated items kept between a low and a high watermark.
+ * Consumers dequeue in O(1); whenever the queue drains to the low watermark a
+ * single asynchronous batch load is started in the background.
+ */
+public class PrefetchBuffer<T> {
+
+    private final String name;
+    private final ArrayBlockingQueue<T> queue;
+    private final int lowWatermark;
+    private final Supplier<CompletableFuture<List<T>>> batchLoader;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    public PrefetchBuffer(String name, int lowWatermark, int highWatermark,
+            Supplier<CompletableFuture<List<T>>> batchLoader) {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks for " + name + ": " + lowWatermark + "/" + highWatermark);
+        }
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(highWatermark);
+        this.lowWatermark = lowWatermark;
+        this.batchLoader = batchLoader;
+    }
+
+    /**
+     * Returns the next buffered item, or null when the buffer is empty. Never blocks.
+     */
+    public T poll() {
+        T item = queue.poll();
+        if (queue.size() <= lowWatermark) {
+            refill();
+        }
+        return item;
+    }
+
+    public void refill() {
+        // At most one batch in flight per buffer
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        CompletableFuture<List<T>> batch;
+        try {
+            batch = batchLoader.get();
+        } catch (RuntimeException e) {
+            refilling.set(false);
+            System.err.println("Prefetch " + name + " failed: " + e.getMessage());
+            return;
+        }
+
+        batch.whenComplete((items, e) -> {
+            int added = 0;
+            if (e != null) {
+                System.err.println("Prefetch " + name + " failed: " + e.getMessage());
+            } else if (items != null) {
+                for (T item : items) {
+                    if (!queue.offer(item)) {
+                        break; // High watermark reached, drop the rest
+                    }
+                    added++;
+                }
+            }
+            refilling.set(false);
+
+            // Keep filling while batches are productive; stop on empty batches so a
+            // failing API is not hammered in a tight loop
+            if (added > 0 && queue.size() <= lowWatermark) {
+                refill();
+            }
+        });
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,133 @@
+package com.blud.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpHeaders;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Paces OpenAI calls from the rate-limit signals the API sends back:
+ * {@code Retry-After}/{@code retry-after-ms} on 429 responses and
+ * {@code x-ratelimit-remaining-requests}/{@code x-ratelimit-reset-requests} on
+ * successful ones. Without a hint it backs off exponentially.
+ */
+@Component
+public class RateLimitPacer {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private long pausedUntil;
+    private long backoffMillis;
+    private long rateLimitedResponses;
+    private long pacedCalls;
+    private String lastDecision = "none";
+
+    public RateLimitPacer(
+            @Value("${blud.openai.pacer.min-backoff-ms:1000}") long minBackoffMillis,
+            @Value("${blud.openai.pacer.max-backoff-ms:60000}") long maxBackoffMillis) {
+        this.minBackoffMillis = minBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Returns true if a call may be sent now; false while a pause is in effect.
+     */
+    public synchronized boolean tryAcquire() {
+        if (System.currentTimeMillis() < pausedUntil) {
+            pacedCalls++;
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void onRateLimited(HttpHeaders headers) {
+        rateLimitedResponses++;
+        long wait = retryAfterMillis(headers);
+        if (wait > 0) {
+            lastDecision = "429 with Retry-After, pausing " + wait + "ms";
+        } else {
+            backoffMillis = backoffMillis == 0 ? minBackoffMillis : Math.min(maxBackoffMillis, backoffMillis * 2);
+            wait = backoffMillis;
+            lastDecision = "429 without hint, backing off " + wait + "ms";
+        }
+        pauseFor(wait);
+    }
+
+    public synchronized void onSuccess(HttpHeaders headers) {
+        backoffMillis = 0;
+        Optional<String> remaining = headers.firstValue("x-ratelimit-remaining-requests");
+        if (remaining.isPresent() && remaining.get().trim().equals("0")) {
+            long reset = headers.firstValue("x-ratelimit-reset-requests").map(RateLimitPacer::parseDuration)
+                    .orElse(minBackoffMillis);
+            lastDecision = "request budget exhausted, pausing " + reset + "ms until reset";
+            pauseFor(reset);
+        }
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pausedForMs", Math.max(0, pausedUntil - System.currentTimeMillis()));
+        status.put("lastDecision", lastDecision);
+        status.put("rateLimitedResponses", rateLimitedResponses);
+        status.put("pacedCalls", pacedCalls);
+        return status;
+    }
+
+    private void pauseFor(long millis) {
+        pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + Math.min(millis, maxBackoffMillis));
+    }
+
+    private static long retryAfterMillis(HttpHeaders headers) {
+        Optional<String> millis = headers.firstValue("retry-after-ms");
+        if (millis.isPresent()) {
+            try {
+                return (long) Double.parseDouble(millis.get().trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        Optional<String> retryAfter = headers.firstValue("retry-after");
+        if (retryAfter.isEmpty()) {
+            return 0;
+        }
+        String value = retryAfter.get().trim();
+        try {
+            return (long) (Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            // HTTP-date form
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, at.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (RuntimeException ignored) {
+            return 0;
+        }
+    }
+
+    /**
+     * Parses OpenAI reset durations such as "20ms", "1s" or "6m0s".
+     */
+    static long parseDuration(String value) {
+        Matcher m = DURATION_PART.matcher(value.trim());
+        double total = 0;
+        while (m.find()) {
+            double amount = Double.parseDouble(m.group(1));
+            switch (m.group(2)) {
+                case "h" -> total += amount * 3_600_000;
+                case "m" -> total += amount * 60_000;
+                case "s" -> total += amount * 1000;
+                default -> total += amount;
+            }
+        }
+        return (long) total;
+    }
+}
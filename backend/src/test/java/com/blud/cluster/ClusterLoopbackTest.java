@@ -0,0 +1,99 @@
+package com.blud.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterLoopbackTest {
+
+    private static final long LEASE_MILLIS = 300;
+
+    private final String clusterName = "loopback-" + UUID.randomUUID();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::stop);
+    }
+
+    @Test
+    void onlyOneNodeLeadsAndTheOtherTakesOverWhenItStops() throws InterruptedException {
+        Node a = start("a");
+        Node b = start("b");
+
+        assertThat(a.coordinator.isLeader()).isTrue();
+        assertThat(b.coordinator.isLeader()).isFalse();
+
+        a.stop();
+        long deadline = System.currentTimeMillis() + 5 * LEASE_MILLIS;
+        while (!b.coordinator.isLeader() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(b.coordinator.isLeader()).isTrue();
+    }
+
+    @Test
+    void relayedTopicMessagesReachTheOtherNodeOnlyOnce() {
+        Node a = start("a");
+        Node b = start("b");
+
+        a.brokerChannel.send(topicMessage("/topic/feed", "hello"));
+
+        assertThat(a.received).hasSize(1);
+        assertThat(a.received.get(0).getHeaders()).doesNotContainKey(ClusterRelay.ORIGIN_HEADER);
+        assertThat(b.received).hasSize(1);
+        assertThat(b.received.get(0).getHeaders().get(ClusterRelay.ORIGIN_HEADER)).isEqualTo("a");
+        assertThat(new String((byte[]) b.received.get(0).getPayload(), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    private Node start(String nodeId) {
+        Node node = new Node(nodeId, new InMemoryClusterTransport(clusterName));
+        nodes.add(node);
+        return node;
+    }
+
+    private static Message<byte[]> topicMessage(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    /**
+     * One node's coordinator, relay and a synchronous broker channel that
+     * records what its local broker would deliver.
+     */
+    private static final class Node {
+        final ClusterCoordinator coordinator;
+        final ClusterRelay relay;
+        final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        final List<Message<?>> received = new CopyOnWriteArrayList<>();
+
+        Node(String nodeId, ClusterTransport transport) {
+            coordinator = new ClusterCoordinator(true, nodeId, LEASE_MILLIS, transport);
+            relay = new ClusterRelay(coordinator, transport);
+            ReflectionTestUtils.setField(relay, "brokerChannel", brokerChannel);
+            brokerChannel.addInterceptor(relay);
+            brokerChannel.subscribe(received::add);
+            coordinator.start();
+            relay.start();
+        }
+
+        void stop() {
+            relay.stop();
+            coordinator.stop();
+        }
+    }
+}
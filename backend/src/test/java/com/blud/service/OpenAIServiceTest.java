@@ -0,0 +1,109 @@
+package com.blud.service;
+
+import com.blud.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAIServiceTest {
+
+    private static final String PROMPT = "Generate 5 quiz questions";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private HttpServer server;
+    private MetricsRegistry metrics;
+    private OpenAIService service;
+
+    @BeforeEach
+    void start() throws IOException {
+        // Answers every completion with a new numbered text, or 500 while failing;
+        // a "hang" prompt holds the exchange open until the test ends
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (request.contains("hang")) {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body;
+            int status;
+            if (failing.get()) {
+                status = 500;
+                body = "{}".getBytes(StandardCharsets.UTF_8);
+            } else {
+                status = 200;
+                body = ("{\"choices\":[{\"message\":{\"content\":\"batch " + calls.incrementAndGet() + "\"}}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        CompletionCache cache = new CompletionCache(true, 256, 30, 3, "");
+        metrics = new MetricsRegistry();
+        service = new OpenAIService("http://localhost:" + server.getAddress().getPort() + "/v1", 2000, 500, 4,
+                false, 150, cache, new CircuitBreaker(20, 5, 50, 80, 6000, 30000, 2),
+                new RateLimitPacer(1000, 60000), metrics);
+        service.setApiKey("test-key");
+    }
+
+    @AfterEach
+    void stop() {
+        released.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void refillsOfTheSamePromptAreFreshCompletions() {
+        // More refills than the cache keeps variants, so a cache-first lookup would repeat them
+        for (int i = 1; i <= 5; i++) {
+            assertThat(service.generateContent(PROMPT)).isEqualTo("batch " + i);
+        }
+        assertThat(calls).hasValue(5);
+    }
+
+    @Test
+    void failedCallIsAnsweredFromEarlierCompletions() {
+        String first = service.generateContent(PROMPT);
+        String second = service.generateContent(PROMPT);
+        assertThat(second).isNotEqualTo(first);
+
+        failing.set(true);
+        assertThat(service.generateContent(PROMPT)).isIn(first, second);
+    }
+
+    @Test
+    void callPastItsDeadlineIsRecordedAsTimeout() throws InterruptedException {
+        assertThat(service.generateContent("hang")).isEqualTo("Simulated Fallback: hang");
+
+        // The permit and outcome are recorded when the aborted exchange completes
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!metrics.scrape().contains("outcome=\"timeout\"") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(metrics.scrape())
+                .contains("blud_openai_request_seconds_count{outcome=\"timeout\"} 1")
+                .doesNotContain("outcome=\"error\"");
+    }
+}
@@ -5,6 +5,13 @@ import { cn } from "@/lib/utils";
 import { useState, useEffect } from "react";
 import webSocketService from "@/lib/websocket-service";
 
+interface HeatmapFrame {
+    version: number;
+    snapshot: boolean;
+    ids: number[] | null;
+    activity: number[];
+}
+
 export default function CampusHeatmap() {
     const [zones, setZones] = useState(() => {
         const hour = new Date().getHours();
@@ -50,15 +57,22 @@ export default function CampusHeatmap() {
 
     useEffect(() => {
         // Subscribe to live heatmap data
-        // Expecting data: { id: number, activity: number }
+        // Expecting frames: a full snapshot on subscribe, then multi-zone deltas
+        let version = -1;
         const subscription = webSocketService.subscribe('/topic/heatmap', (data: unknown) => {
-            const typedData = data as { id: number, activity: number };
-            setZones(prevZones => prevZones.map(zone => {
-                if (zone.id === typedData.id) {
-                    return { ...zone, activity: typedData.activity };
+            const frame = data as HeatmapFrame;
+            if (frame.version <= version) return; // Already covered by the snapshot
+            version = frame.version;
+            const changes = new Map<number, number>();
+            frame.activity.forEach((activity, i) => {
+                // Untouched zones in a snapshot keep their local estimate
+                if (!frame.snapshot || activity > 0) {
+                    changes.set(frame.snapshot ? i : frame.ids![i], activity);
                 }
-                return zone;
-            }));
+            });
+            setZones(prevZones => prevZones.map(zone =>
+                changes.has(zone.id) ? { ...zone, activity: changes.get(zone.id)! } : zone
+            ));
         });
         return () => { subscription.unsubscribe(); };
     }, []);
@@ -5,9 +5,11 @@ import { motion, AnimatePresence } from "framer-motion";
 import { Card } from "@/components/ui/Card";
 import webSocketService from "@/lib/websocket-service";
 
-interface HeatmapUpdate {
-    id: number;
-    activity: number;
+interface HeatmapFrame {
+    version: number;
+    snapshot: boolean;
+    ids: number[] | null;
+    activity: number[];
 }
 
 export default function GhostMap() {
@@ -18,18 +20,24 @@ export default function GhostMap() {
 
     useEffect(() => {
         const unsubscribe = webSocketService.subscribe('/topic/heatmap', (data: unknown) => {
-            const update = data as HeatmapUpdate;
+            const frame = data as HeatmapFrame;
+            // Ghosts only flash on live changes, not on the initial snapshot
+            if (frame.snapshot || !frame.ids) return;
+            const updates: Record<number, number> = {};
+            frame.ids.forEach((id, i) => { updates[id] = frame.activity[i]; });
             setZones(prev => ({
                 ...prev,
-                [update.id]: update.activity
+                ...updates
             }));
 
-            // Fade out effect - remove activity after 3 seconds
+            // Fade out effect - remove activity after 2 seconds
             setTimeout(() => {
                 setZones(prev => {
                     const next = { ...prev };
-                    if (next[update.id] === update.activity) {
-                        delete next[update.id];
+                    for (const id of frame.ids!) {
+                        if (next[id] === updates[id]) {
+                            delete next[id];
+                        }
                     }
                     return next;
                 });
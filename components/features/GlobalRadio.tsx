@@ -7,7 +7,7 @@ import webSocketService from "@/lib/websocket-service";
 
 interface RadioState {
     track: string;
-    elapsed: number;
+    startedAt: number; // Server epoch millis
     total: number;
     status: string;
 }
@@ -20,7 +20,21 @@ export default function GlobalRadio() {
     // Simulated "Lofi" visualizer bars
     const bars = [1, 2, 3, 4, 5, 4, 3, 2];
 
+    const [elapsed, setElapsed] = useState(0);
+    const clockOffsetRef = useRef(0); // serverTime - Date.now()
+
     useEffect(() => {
+        // One round trip to estimate the server clock; progress is interpolated locally
+        const requestedAt = Date.now();
+        fetch(`${process.env.NEXT_PUBLIC_API_URL}/api/time`)
+            .then(res => res.json())
+            .then((data: { serverTime: number }) => {
+                const receivedAt = Date.now();
+                clockOffsetRef.current = data.serverTime - (requestedAt + receivedAt) / 2;
+            })
+            .catch(() => { /* Fall back to the local clock */ });
+
+        // Snapshot on subscribe, then one event per track change
         const subscription = webSocketService.subscribe('/topic/radio', (data: unknown) => {
             const update = data as RadioState;
             setRadioState(update);
@@ -31,18 +45,29 @@ export default function GlobalRadio() {
         };
     }, []);
 
+    useEffect(() => {
+        if (!radioState) return;
+        const tick = () => {
+            const serverNow = Date.now() + clockOffsetRef.current;
+            setElapsed(Math.min(radioState.total, Math.max(0, serverNow - radioState.startedAt)));
+        };
+        tick();
+        const timer = setInterval(tick, 1000);
+        return () => clearInterval(timer);
+    }, [radioState]);
+
     // Mock Audio Playback (Silent for now, or use a placeholder)
     useEffect(() => {
         if (!isMuted && radioState?.status === "LIVE") {
             // in a real app, we'd sync this with the actual track URL
-            // and seek to radioState.elapsed
-            console.log("Syncing audio to", radioState.elapsed);
+            // and seek to the interpolated position
+            console.log("Syncing audio to", Date.now() + clockOffsetRef.current - radioState.startedAt);
         }
     }, [radioState, isMuted]);
 
     if (!radioState) return <div className="p-4 text-xs text-white/20">Scanning frequencies...</div>;
 
-    const progressPercent = (radioState.elapsed / radioState.total) * 100;
+    const progressPercent = (elapsed / radioState.total) * 100;
 
     return (
         <div className="bg-black/20 border border-white/5 rounded-xl p-4 relative overflow-hidden group">
@@ -4,6 +4,7 @@ import { useEffect, useState } from "react";
 import { motion, AnimatePresence } from "framer-motion";
 import { Card } from "@/components/ui/Card";
 import { Trophy, TrendingUp, Users } from "lucide-react";
+import webSocketService from "@/lib/websocket-service";
 
 interface DormStat {
     name: string;
@@ -30,9 +31,12 @@ export default function Leaderboard() {
         };
 
         fetchStats();
-        // Poll every 10 seconds for updates
-        const interval = setInterval(fetchStats, 10000);
-        return () => clearInterval(interval);
+        // Ranking changes are pushed; no polling
+        const subscription = webSocketService.subscribe('/topic/leaderboard', (data: unknown) => {
+            setStats(data as DormStat[]);
+            setLoading(false);
+        });
+        return () => { subscription.unsubscribe(); };
     }, []);
 
     return (
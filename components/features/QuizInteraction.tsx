@@ -1,14 +1,30 @@
 "use client";
 
-import { useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { motion, AnimatePresence } from "framer-motion";
 import { Check, X, BrainCircuit, Trophy } from "lucide-react";
 import { useSound } from "@/components/providers/SoundProvider";
 import { cn } from "@/lib/utils";
+import webSocketService from "@/lib/websocket-service";
 
 interface Post {
     id: number;
+    quizId?: number;
     options?: string[];
+}
+
+interface QuizVerdict {
+    quizId: number;
+    option: number;
+    outcome: "correct" | "wrong" | "duplicate" | "closed" | "invalid";
+    score?: Record<string, unknown>;
+}
+
+interface QuizResults {
+    quizId: number;
+    counts: number[];
+    total: number;
+    closed: boolean;
     correctAnswer?: number;
 }
 
@@ -17,44 +33,60 @@ export default function QuizInteraction({ post }: { post: Post }) {
     const [selected, setSelected] = useState<number | null>(null);
     const [isCorrect, setIsCorrect] = useState<boolean | null>(null);
     const [submitted, setSubmitted] = useState(false);
-
-    const handleSelect = async (index: number) => {
+    const [results, setResults] = useState<QuizResults | null>(null);
+    // Sound callbacks change identity every render; read them through a ref so the subscriptions stay put
+    const sounds = useRef({ playSuccess, playError });
+    useEffect(() => {
+        sounds.current = { playSuccess, playError };
+    });
+
+    // The answer is checked server-side; the verdict comes back to this session only
+    useEffect(() => {
+        if (post.quizId === undefined) return;
+        const verdicts = webSocketService.subscribe('/user/queue/quiz', (message: unknown) => {
+            const verdict = message as QuizVerdict;
+            if (verdict.quizId !== post.quizId) return;
+            if (verdict.outcome === "correct") {
+                setIsCorrect(true);
+                sounds.current.playSuccess();
+                if (verdict.score) {
+                    const user = JSON.parse(localStorage.getItem("user") || "{}");
+                    // Update local storage so Profile Card sees it
+                    localStorage.setItem("user", JSON.stringify({ ...user, ...verdict.score, email: user.email }));
+                    // Dispatch event to notify StudentIdCard to re-render
+                    window.dispatchEvent(new Event("blud-user-update"));
+                }
+            } else {
+                setIsCorrect(false);
+                sounds.current.playError();
+            }
+        });
+        // Live answer counts, revealing the correct option once the quiz closes
+        const live = webSocketService.subscribe(`/topic/quiz/${post.quizId}`, (message: unknown) => {
+            setResults(message as QuizResults);
+        });
+        return () => {
+            verdicts.unsubscribe();
+            live.unsubscribe();
+        };
+    }, [post.quizId]);
+
+    const handleSelect = (index: number) => {
         if (submitted) return;
 
         setSelected(index);
         setSubmitted(true);
 
-        const correct = index === post.correctAnswer;
-        setIsCorrect(correct);
-
-        if (correct) {
-            playSuccess();
-            // Fire and forget score update
-            try {
-                const user = JSON.parse(localStorage.getItem("user") || "{}");
-                if (user.email) {
-                    const res = await fetch(`${process.env.NEXT_PUBLIC_API_URL}/api/stats/score`, {
-                        method: "POST",
-                        headers: { "Content-Type": "application/json" },
-                        body: JSON.stringify({ email: user.email, correct: true })
-                    });
-
-                    if (res.ok) {
-                        const updatedUser = await res.json();
-                        // Update local storage so Profile Card sees it
-                        localStorage.setItem("user", JSON.stringify({ ...updatedUser, email: user.email }));
-                        // Dispatch event to notify StudentIdCard to re-render
-                        window.dispatchEvent(new Event("blud-user-update"));
-                    }
-                }
-            } catch (e) {
-                console.error("Failed to update score", e);
-            }
-        } else {
-            playError();
+        if (post.quizId === undefined) {
+            setIsCorrect(false); // Not a live quiz, nothing to answer
+            return;
         }
+        const user = JSON.parse(localStorage.getItem("user") || "{}");
+        webSocketService.send(`/app/quiz/${post.quizId}/answer`, { option: index, email: user.email });
     };
 
+    const correctAnswer = results?.closed ? results.correctAnswer : (isCorrect ? selected : undefined);
+
     return (
         <div className="mt-4 space-y-2">
             {!submitted && (
@@ -67,7 +99,8 @@ export default function QuizInteraction({ post }: { post: Post }) {
             <div className="grid grid-cols-1 gap-2">
                 {post.options?.map((option, index) => {
                     const isSelected = selected === index;
-                    const isTheCorrectAnswer = index === post.correctAnswer;
+                    const isTheCorrectAnswer = index === correctAnswer;
+                    const share = results && results.total > 0 ? Math.round(100 * results.counts[index] / results.total) : null;
 
                     // Styles
                     let bgClass = "bg-blud-blue/5 hover:bg-blud-blue/10 border-transparent";
@@ -77,10 +110,10 @@ export default function QuizInteraction({ post }: { post: Post }) {
                         if (isTheCorrectAnswer) {
                             bgClass = "bg-green-500/10 border-green-500/50";
                             textClass = "text-green-600 font-bold";
-                        } else if (isSelected && !isCorrect) {
+                        } else if (isSelected && isCorrect === false) {
                             bgClass = "bg-red-500/10 border-red-500/50";
                             textClass = "text-red-600 font-medium line-through decoration-red-500/50";
-                        } else {
+                        } else if (!isSelected) {
                             bgClass = "opacity-50";
                         }
                     }
@@ -102,7 +135,7 @@ export default function QuizInteraction({ post }: { post: Post }) {
                                 <span className={cn(
                                     "w-6 h-6 rounded-full flex items-center justify-center text-[10px] font-bold border transition-colors",
                                     submitted && isTheCorrectAnswer ? "bg-green-500 text-white border-green-500" :
-                                        submitted && isSelected && !isCorrect ? "bg-red-500 text-white border-red-500" :
+                                        submitted && isSelected && isCorrect === false ? "bg-red-500 text-white border-red-500" :
                                             "border-blud-blue/20 text-blud-blue/40 group-hover:border-blud-blue/50 group-hover:text-blud-blue"
                                 )}>
                                     {String.fromCharCode(65 + index)}
@@ -110,6 +143,10 @@ export default function QuizInteraction({ post }: { post: Post }) {
                                 {option}
                             </span>
 
+                            {submitted && share !== null && (
+                                <span className="ml-auto mr-2 text-[10px] font-mono opacity-60">{share}%</span>
+                            )}
+
                             {submitted && isTheCorrectAnswer && (
                                 <motion.div
                                     initial={{ scale: 0 }}
@@ -120,7 +157,7 @@ export default function QuizInteraction({ post }: { post: Post }) {
                                 </motion.div>
                             )}
 
-                            {submitted && isSelected && !isCorrect && (
+                            {submitted && isSelected && isCorrect === false && (
                                 <motion.div
                                     initial={{ scale: 0 }}
                                     animate={{ scale: 1 }}
@@ -49,10 +49,13 @@ export default function StudentIdCard() {
                                 handle: user.handle || prev.handle,
                                 location: user.dorm || prev.location,
                                 position: user.major || prev.position,
-                                avatar: user.avatar || prev.avatar,
+                                // Uploaded avatars come back as a path on the API server
+                                avatar: user.avatar?.startsWith("/api/")
+                                    ? `${process.env.NEXT_PUBLIC_API_URL}${user.avatar}`
+                                    : user.avatar || prev.avatar,
                                 birth: user.birthDate || prev.birth,
-                                productivity: user.productivity || prev.productivity,
-                                success: user.successRate || prev.success,
+                                productivity: user.productivity != null ? String(user.productivity) : prev.productivity,
+                                success: user.successRate != null ? String(user.successRate) : prev.success,
                                 id: user.id ? `ID.${user.id}` : prev.id
                             }));
                         }
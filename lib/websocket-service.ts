@@ -162,6 +162,8 @@ class SafeWebSocketService {
     constructor() {
         this.client = new Client({
             webSocketFactory: () => new SockJS(WEBSOCKET_URL),
+            // Null fields are left out of payloads; every optional field is already typed as optional
+            connectHeaders: { 'blud-encoding': 'json-compact' },
             onConnect: () => {
                 // console.log('Connected to WS');
                 this.isConnected = true;